@@ -0,0 +1,268 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+class AstPrinter implements Expr.Visitor<String>, Stmt.Visitor<Void> {
+    private final StringBuilder out = new StringBuilder();
+    private int indent = 0;
+
+    String print(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            statement.accept(this);
+        }
+        return out.toString();
+    }
+
+    private String print(Expr expr) {
+        return expr.accept(this);
+    }
+
+    private String bare(Expr expr) {
+        String text = print(expr);
+        if (expr instanceof Expr.Binary || expr instanceof Expr.Compare || expr instanceof Expr.Logical) {
+            return text.substring(1, text.length() - 1);
+        }
+        return text;
+    }
+
+    private void line(String text) {
+        out.append("    ".repeat(indent)).append(text).append('\n');
+    }
+
+    private void nested(Stmt stmt) {
+        if (stmt instanceof Stmt.Block) {
+            stmt.accept(this);
+            return;
+        }
+
+        indent++;
+        stmt.accept(this);
+        indent--;
+    }
+
+    private String block(String header, List<Stmt> body) {
+        AstPrinter printer = new AstPrinter();
+        printer.indent = indent + 1;
+        return header + " {\n" + printer.print(body) + "    ".repeat(indent) + "}";
+    }
+
+    private String arguments(List<Expr> arguments) {
+        StringBuilder builder = new StringBuilder();
+        for (Expr argument : arguments) {
+            if (builder.length() > 0) builder.append(", ");
+            builder.append(print(argument));
+        }
+        return builder.toString();
+    }
+
+    private static String parameters(List<Token> params) {
+        StringBuilder builder = new StringBuilder();
+        for (Token param : params) {
+            if (builder.length() > 0) builder.append(", ");
+            builder.append(param.lexeme);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String visit(Expr.Assign expr) {
+        return expr.name.lexeme + " = " + bare(expr.value);
+    }
+
+    @Override
+    public String visit(Expr.Binary expr) {
+        return "(" + print(expr.left) + " " + expr.operator.lexeme + " " + print(expr.right) + ")";
+    }
+
+    @Override
+    public String visit(Expr.Cached expr) {
+        return "cache#" + expr.slot + "(" + print(expr.expression) + ")";
+    }
+
+    @Override
+    public String visit(Expr.Call expr) {
+        return print(expr.callee) + "(" + arguments(expr.arguments) + ")";
+    }
+
+    @Override
+    public String visit(Expr.Compare expr) {
+        return "(" + print(expr.left) + " " + expr.operator.lexeme + " " + print(expr.right) + ")";
+    }
+
+    @Override
+    public String visit(Expr.Compound expr) {
+        return expr.name.lexeme + " " + expr.operator.lexeme + "= " + print(expr.value);
+    }
+
+    @Override
+    public String visit(Expr.CompoundSet expr) {
+        return print(expr.object) + "." + expr.name.lexeme + " " + expr.operator.lexeme + "= " + print(expr.value);
+    }
+
+    @Override
+    public String visit(Expr.Function expr) {
+        return block("fun (" + parameters(expr.params) + ")", expr.body);
+    }
+
+    @Override
+    public String visit(Expr.Get expr) {
+        return print(expr.object) + "." + expr.name.lexeme;
+    }
+
+    @Override
+    public String visit(Expr.Grouping expr) {
+        return "(" + print(expr.expression) + ")";
+    }
+
+    @Override
+    public String visit(Expr.Inline expr) {
+        return "inline " + print(expr.call) + " => " + print(expr.body);
+    }
+
+    @Override
+    public String visit(Expr.Literal expr) {
+        if (expr.value == null) return "nil";
+        if (expr.value instanceof String string) return "\"" + string + "\"";
+        Object value = expr.value instanceof Long integer ? (Object) integer.doubleValue() : expr.value;
+        String text = value.toString();
+        return text.endsWith(".0") ? text.substring(0, text.length() - 2) : text;
+    }
+
+    @Override
+    public String visit(Expr.Logical expr) {
+        return "(" + print(expr.left) + " " + expr.operator.lexeme + " " + print(expr.right) + ")";
+    }
+
+    @Override
+    public String visit(Expr.Set expr) {
+        return print(expr.object) + "." + expr.name.lexeme + " = " + print(expr.value);
+    }
+
+    @Override
+    public String visit(Expr.Super expr) {
+        return "super." + expr.method.lexeme;
+    }
+
+    @Override
+    public String visit(Expr.Ternary expr) {
+        return "(" + print(expr.condition) + " ? " + print(expr.onTrue) + " : " + print(expr.onFalse) + ")";
+    }
+
+    @Override
+    public String visit(Expr.This expr) {
+        return "this";
+    }
+
+    @Override
+    public String visit(Expr.Unary expr) {
+        return expr.operator.lexeme + print(expr.right);
+    }
+
+    @Override
+    public String visit(Expr.Variable expr) {
+        return expr.name.lexeme;
+    }
+
+    @Override
+    public Void visit(Stmt.Block stmt) {
+        line("{");
+        indent++;
+        for (Stmt statement : stmt.statements) {
+            statement.accept(this);
+        }
+        indent--;
+        line("}");
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Break stmt) {
+        line("break;");
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Class stmt) {
+        String superclass = stmt.superclass == null ? "" : " < " + stmt.superclass.name.lexeme;
+        line("class " + stmt.name.lexeme + superclass + " {");
+        indent++;
+        for (Stmt.Function method : stmt.methods) {
+            line(block(method.name.lexeme + "(" + parameters(method.function.params) + ")", method.function.body));
+        }
+        indent--;
+        line("}");
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Expression stmt) {
+        line(bare(stmt.expression) + ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.For stmt) {
+        String initializer = "";
+        if (stmt.initializer instanceof Stmt.Var var) {
+            initializer = "var " + var.name.lexeme + (var.initializer == null ? "" : " = " + bare(var.initializer));
+        } else if (stmt.initializer instanceof Stmt.Expression expression) {
+            initializer = bare(expression.expression);
+        }
+
+        String condition = stmt.condition == null ? "" : bare(stmt.condition);
+        String increment = stmt.increment == null ? "" : print(stmt.increment);
+        line("for (" + initializer + "; " + condition + "; " + increment + ")");
+        nested(stmt.body);
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Function stmt) {
+        line(block("fun " + stmt.name.lexeme + "(" + parameters(stmt.function.params) + ")", stmt.function.body));
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.If stmt) {
+        line("if (" + bare(stmt.condition) + ")");
+        nested(stmt.thenBranch);
+        if (stmt.elseBranch != null) {
+            line("else");
+            nested(stmt.elseBranch);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Print stmt) {
+        line("print " + bare(stmt.expression) + ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Return stmt) {
+        line(stmt.value == null ? "return;" : "return " + bare(stmt.value) + ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.ReturnCall stmt) {
+        line("return " + print(stmt.call) + ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Var stmt) {
+        line(stmt.initializer == null
+                ? "var " + stmt.name.lexeme + ";"
+                : "var " + stmt.name.lexeme + " = " + bare(stmt.initializer) + ";");
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.While stmt) {
+        line("while (" + bare(stmt.condition) + ")");
+        nested(stmt.body);
+        return null;
+    }
+}
@@ -0,0 +1,311 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class AstRewriter implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    List<Stmt> rewrite(List<Stmt> statements) {
+        List<Stmt> result = null;
+        for (int i = 0; i < statements.size(); i++) {
+            Stmt statement = statements.get(i);
+            Stmt rewritten = rewrite(statement);
+            if (rewritten != statement && result == null) {
+                result = new ArrayList<>(statements.subList(0, i));
+            }
+            if (result != null) result.add(rewritten);
+        }
+        return result == null ? statements : result;
+    }
+
+    Stmt rewrite(Stmt stmt) {
+        return stmt == null ? null : stmt.accept(this);
+    }
+
+    Expr rewrite(Expr expr) {
+        return expr == null ? null : expr.accept(this);
+    }
+
+    private List<Expr> rewriteAll(List<Expr> exprs) {
+        List<Expr> result = null;
+        for (int i = 0; i < exprs.size(); i++) {
+            Expr expr = exprs.get(i);
+            Expr rewritten = rewrite(expr);
+            if (rewritten != expr && result == null) {
+                result = new ArrayList<>(exprs.subList(0, i));
+            }
+            if (result != null) result.add(rewritten);
+        }
+        return result == null ? exprs : result;
+    }
+
+    @Override
+    public Expr visit(Expr.Assign expr) {
+        Expr value = rewrite(expr.value);
+        if (value == expr.value) return expr;
+
+        Expr.Assign copy = new Expr.Assign(expr.name, value);
+        copy.slot = expr.slot;
+        return copy;
+    }
+
+    @Override
+    public Expr visit(Expr.Binary expr) {
+        Expr left = rewrite(expr.left);
+        Expr right = rewrite(expr.right);
+        if (left == expr.left && right == expr.right) return expr;
+        return new Expr.Binary(left, expr.operator, right);
+    }
+
+    @Override
+    public Expr visit(Expr.Cached expr) {
+        Expr expression = rewrite(expr.expression);
+        if (expression == expr.expression) return expr;
+
+        Expr.Cached copy = new Expr.Cached(expression);
+        copy.slot = expr.slot;
+        copy.lazy = expr.lazy;
+        return copy;
+    }
+
+    @Override
+    public Expr visit(Expr.Call expr) {
+        Expr callee = rewrite(expr.callee);
+        List<Expr> arguments = rewriteAll(expr.arguments);
+        if (callee == expr.callee && arguments == expr.arguments) return expr;
+        return new Expr.Call(callee, expr.paren, arguments);
+    }
+
+    @Override
+    public Expr visit(Expr.Compare expr) {
+        Expr left = rewrite(expr.left);
+        Expr right = rewrite(expr.right);
+        if (left == expr.left && right == expr.right) return expr;
+        return new Expr.Compare(left, expr.operator, right);
+    }
+
+    @Override
+    public Expr visit(Expr.Compound expr) {
+        Expr value = rewrite(expr.value);
+        if (value == expr.value) return expr;
+
+        Expr.Compound copy = new Expr.Compound(expr.name, expr.operator, value);
+        copy.slot = expr.slot;
+        return copy;
+    }
+
+    @Override
+    public Expr visit(Expr.CompoundSet expr) {
+        Expr object = rewrite(expr.object);
+        Expr value = rewrite(expr.value);
+        if (object == expr.object && value == expr.value) return expr;
+        return new Expr.CompoundSet(object, expr.name, expr.operator, value);
+    }
+
+    @Override
+    public Expr visit(Expr.Function expr) {
+        List<Stmt> body = rewrite(expr.body);
+        if (body == expr.body) return expr;
+
+        Expr.Function copy = new Expr.Function(expr.params, body);
+        copy.parameters = expr.parameters;
+        copy.upvalues = expr.upvalues;
+        copy.frameSize = expr.frameSize;
+        return copy;
+    }
+
+    @Override
+    public Expr visit(Expr.Get expr) {
+        Expr object = rewrite(expr.object);
+        if (object == expr.object) return expr;
+        return new Expr.Get(object, expr.name);
+    }
+
+    @Override
+    public Expr visit(Expr.Grouping expr) {
+        Expr expression = rewrite(expr.expression);
+        if (expression == expr.expression) return expr;
+        return new Expr.Grouping(expression);
+    }
+
+    @Override
+    public Expr visit(Expr.Inline expr) {
+        Expr.Call call = (Expr.Call) rewrite(expr.call);
+        Expr body = rewrite(expr.body);
+        if (call == expr.call && body == expr.body) return expr;
+
+        Expr.Inline copy = new Expr.Inline(call, expr.target, body);
+        copy.base = expr.base;
+        return copy;
+    }
+
+    @Override
+    public Expr visit(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visit(Expr.Logical expr) {
+        Expr left = rewrite(expr.left);
+        Expr right = rewrite(expr.right);
+        if (left == expr.left && right == expr.right) return expr;
+        return new Expr.Logical(left, expr.operator, right);
+    }
+
+    @Override
+    public Expr visit(Expr.Set expr) {
+        Expr object = rewrite(expr.object);
+        Expr value = rewrite(expr.value);
+        if (object == expr.object && value == expr.value) return expr;
+        return new Expr.Set(object, expr.name, value);
+    }
+
+    @Override
+    public Expr visit(Expr.Super expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visit(Expr.Ternary expr) {
+        Expr condition = rewrite(expr.condition);
+        Expr onTrue = rewrite(expr.onTrue);
+        Expr onFalse = rewrite(expr.onFalse);
+        if (condition == expr.condition && onTrue == expr.onTrue && onFalse == expr.onFalse) return expr;
+        return new Expr.Ternary(condition, onTrue, onFalse);
+    }
+
+    @Override
+    public Expr visit(Expr.This expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visit(Expr.Unary expr) {
+        Expr right = rewrite(expr.right);
+        if (right == expr.right) return expr;
+        return new Expr.Unary(expr.operator, right);
+    }
+
+    @Override
+    public Expr visit(Expr.Variable expr) {
+        return expr;
+    }
+
+    @Override
+    public Stmt visit(Stmt.Block stmt) {
+        List<Stmt> statements = rewrite(stmt.statements);
+        if (statements == stmt.statements) return stmt;
+        return new Stmt.Block(statements);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Break stmt) {
+        return stmt;
+    }
+
+    @Override
+    public Stmt visit(Stmt.Class stmt) {
+        List<Stmt.Function> methods = null;
+        for (int i = 0; i < stmt.methods.size(); i++) {
+            Stmt.Function method = stmt.methods.get(i);
+            Stmt.Function rewritten = (Stmt.Function) rewrite(method);
+            if (rewritten != method && methods == null) {
+                methods = new ArrayList<>(stmt.methods.subList(0, i));
+            }
+            if (methods != null) methods.add(rewritten);
+        }
+        if (methods == null) return stmt;
+
+        Stmt.Class copy = new Stmt.Class(stmt.name, stmt.superclass, methods);
+        copy.slot = stmt.slot;
+        return copy;
+    }
+
+    @Override
+    public Stmt visit(Stmt.Expression stmt) {
+        Expr expression = rewrite(stmt.expression);
+        if (expression == stmt.expression) return stmt;
+        return new Stmt.Expression(expression);
+    }
+
+    @Override
+    public Stmt visit(Stmt.For stmt) {
+        Stmt initializer = rewrite(stmt.initializer);
+        Expr condition = rewrite(stmt.condition);
+        Expr increment = rewrite(stmt.increment);
+        Stmt body = rewrite(stmt.body);
+        if (initializer == stmt.initializer && condition == stmt.condition
+                && increment == stmt.increment && body == stmt.body) {
+            return stmt;
+        }
+
+        Stmt.For copy = new Stmt.For(stmt.keyword, initializer, condition, increment, body);
+        copy.counted = stmt.counted;
+        copy.invariants = stmt.invariants;
+        return copy;
+    }
+
+    @Override
+    public Stmt visit(Stmt.Function stmt) {
+        Expr.Function function = (Expr.Function) rewrite(stmt.function);
+        if (function == stmt.function) return stmt;
+
+        Stmt.Function copy = new Stmt.Function(stmt.name, function);
+        copy.slot = stmt.slot;
+        copy.unused = stmt.unused;
+        return copy;
+    }
+
+    @Override
+    public Stmt visit(Stmt.If stmt) {
+        Expr condition = rewrite(stmt.condition);
+        Stmt thenBranch = rewrite(stmt.thenBranch);
+        Stmt elseBranch = rewrite(stmt.elseBranch);
+        if (condition == stmt.condition && thenBranch == stmt.thenBranch && elseBranch == stmt.elseBranch) {
+            return stmt;
+        }
+        return new Stmt.If(condition, thenBranch, elseBranch);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Print stmt) {
+        Expr expression = rewrite(stmt.expression);
+        if (expression == stmt.expression) return stmt;
+        return new Stmt.Print(expression);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Return stmt) {
+        Expr value = rewrite(stmt.value);
+        if (value == stmt.value) return stmt;
+        return new Stmt.Return(stmt.keyword, value);
+    }
+
+    @Override
+    public Stmt visit(Stmt.ReturnCall stmt) {
+        Expr.Call call = (Expr.Call) rewrite(stmt.call);
+        if (call == stmt.call) return stmt;
+        return new Stmt.ReturnCall(stmt.keyword, call);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Var stmt) {
+        Expr initializer = rewrite(stmt.initializer);
+        if (initializer == stmt.initializer) return stmt;
+
+        Stmt.Var copy = new Stmt.Var(stmt.name, initializer);
+        copy.slot = stmt.slot;
+        copy.unused = stmt.unused;
+        return copy;
+    }
+
+    @Override
+    public Stmt visit(Stmt.While stmt) {
+        Expr condition = rewrite(stmt.condition);
+        Stmt body = rewrite(stmt.body);
+        if (condition == stmt.condition && body == stmt.body) return stmt;
+
+        Stmt.While copy = new Stmt.While(stmt.keyword, condition, body);
+        copy.invariants = stmt.invariants;
+        return copy;
+    }
+}
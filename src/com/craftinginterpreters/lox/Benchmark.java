@@ -0,0 +1,67 @@
+package com.craftinginterpreters.lox;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+class Benchmark {
+    private static final long ORIGIN = System.nanoTime();
+
+    private Benchmark() {}
+
+    static double nanoClock() {
+        return System.nanoTime() - ORIGIN;
+    }
+
+    static LoxMap run(Interpreter interpreter, Object function, Object iterations) {
+        if (!(function instanceof LoxCallable callee) || callee.arity() != 0) {
+            throw new RuntimeError("bench expects a function of 0 arguments.");
+        }
+        double count = Numbers.isNumber(iterations) ? Numbers.toDouble(iterations) : Double.NaN;
+        if (count != Math.floor(count) || count < 1 || count > Integer.MAX_VALUE) {
+            throw new RuntimeError("Iteration count must be a positive integer.");
+        }
+
+        int runs = (int) count;
+        List<Object> arguments = List.of();
+        for (int i = 0; i < runs; i++) {
+            interpreter.callback(callee, arguments);
+        }
+
+        long[] samples = new long[runs];
+        long allocated = allocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            interpreter.callback(callee, arguments);
+            samples[i] = System.nanoTime() - start;
+        }
+        long allocatedAfter = allocatedBytes();
+
+        long total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        Arrays.sort(samples);
+
+        LoxMap report = new LoxMap();
+        report.put("iterations", (double) runs);
+        report.put("mean", (double) total / runs);
+        report.put("p50", (double) percentile(samples, 0.50));
+        report.put("p99", (double) percentile(samples, 0.99));
+        report.put("allocated", allocated < 0 ? null : (double) (allocatedAfter - allocated) / runs);
+        return report;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,131 @@
+package com.craftinginterpreters.lox;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+class Budget {
+    private static final long UNLIMITED = Long.MAX_VALUE;
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+    private static final long BATCH = 256;
+
+    private final long maxSteps;
+    private final long timeoutNanos;
+    private final long maxDepth;
+    private final long maxAllocations;
+
+    private final Budget root;
+    private final AtomicLong pooledSteps = new AtomicLong();
+    private final AtomicLong pooledAllocations = new AtomicLong();
+
+    private long steps = 0;
+    private long deadline = 0;
+    private long depth = 0;
+    private long allocations = 0;
+    private long stepLimit;
+    private long allocationLimit;
+    private long chargedSteps = 0;
+    private long chargedAllocations = 0;
+
+    Budget(long maxSteps, long timeoutMillis, long maxDepth, long maxAllocations) {
+        this.maxSteps = maxSteps > 0 ? maxSteps : UNLIMITED;
+        this.timeoutNanos = timeoutMillis > 0 ? timeoutMillis * 1_000_000 : UNLIMITED;
+        this.maxDepth = maxDepth > 0 ? maxDepth : UNLIMITED;
+        this.maxAllocations = maxAllocations > 0 ? maxAllocations : UNLIMITED;
+        this.root = null;
+        this.stepLimit = this.maxSteps;
+        this.allocationLimit = this.maxAllocations;
+    }
+
+    private Budget(Budget parent) {
+        this.maxSteps = parent.maxSteps;
+        this.timeoutNanos = parent.timeoutNanos;
+        this.maxDepth = parent.maxDepth;
+        this.maxAllocations = parent.maxAllocations;
+        this.root = parent.root == null ? parent : parent.root;
+        this.deadline = parent.deadline;
+        this.depth = parent.depth;
+        this.stepLimit = maxSteps == UNLIMITED ? UNLIMITED : BATCH;
+        this.allocationLimit = maxAllocations == UNLIMITED ? UNLIMITED : BATCH;
+    }
+
+    Budget fork() {
+        return new Budget(this);
+    }
+
+    void release() {
+        root.pooledSteps.addAndGet(steps - chargedSteps);
+        root.pooledAllocations.addAndGet(allocations - chargedAllocations);
+        chargedSteps = steps;
+        chargedAllocations = allocations;
+    }
+
+    void join() {
+        steps += pooledSteps.getAndSet(0);
+        allocations += pooledAllocations.getAndSet(0);
+    }
+
+    static Budget unlimited() {
+        return new Budget(0, 0, 0, 0);
+    }
+
+    void reset() {
+        steps = 0;
+        depth = 0;
+        allocations = 0;
+        pooledSteps.set(0);
+        pooledAllocations.set(0);
+        if (timeoutNanos != UNLIMITED) deadline = System.nanoTime() + timeoutNanos;
+    }
+
+    void backEdge(Token site) {
+        if (++steps > stepLimit) chargeSteps(site);
+
+        if (timeoutNanos != UNLIMITED && steps % DEADLINE_CHECK_INTERVAL == 0
+                && System.nanoTime() - deadline > 0) {
+            throw new RuntimeError(site, "Execution deadline of " + timeoutNanos / 1_000_000 + " ms exceeded.");
+        }
+    }
+
+    void enter(Token site) {
+        backEdge(site);
+        if (++depth > maxDepth) {
+            depth--;
+            throw new RuntimeError(site, "Maximum call depth of " + maxDepth + " exceeded.");
+        }
+    }
+
+    void exit() {
+        depth--;
+    }
+
+    void allocate(Token site) {
+        if (++allocations > allocationLimit) chargeAllocations(site);
+    }
+
+    void allocate(Expr site) {
+        if (allocations < allocationLimit) {
+            allocations++;
+            return;
+        }
+        allocate(new Token(TokenType.LEFT_BRACE, "{", null, LineFinder.of(site)));
+    }
+
+    private void chargeSteps(Token site) {
+        if (root != null) {
+            long total = root.steps + root.pooledSteps.addAndGet(steps - chargedSteps);
+            chargedSteps = steps;
+            stepLimit = steps + BATCH;
+            if (total <= maxSteps) return;
+        }
+        throw new RuntimeError(site, "Execution budget of " + maxSteps + " steps exceeded.");
+    }
+
+    private void chargeAllocations(Token site) {
+        if (root != null) {
+            long total = root.allocations + root.pooledAllocations.addAndGet(allocations - chargedAllocations);
+            chargedAllocations = allocations;
+            allocationLimit = allocations + BATCH;
+            if (total <= maxAllocations) return;
+        }
+        throw new RuntimeError(site, "Allocation budget of " + maxAllocations + " objects exceeded.");
+    }
+}
@@ -0,0 +1,43 @@
+package com.craftinginterpreters.lox;
+
+class CallCache {
+    private static final int POLYMORPHIC_LIMIT = 4;
+
+    private final Expr.Function[] targets = new Expr.Function[POLYMORPHIC_LIMIT];
+    private int size = 0;
+    private boolean megamorphic = false;
+    long hits = 0;
+    long misses = 0;
+
+    boolean hit(Expr.Function declaration) {
+        for (int i = 0; i < size; i++) {
+            if (targets[i] == declaration) {
+                hits++;
+                return true;
+            }
+        }
+        misses++;
+        return false;
+    }
+
+    void add(Expr.Function declaration) {
+        if (megamorphic) return;
+        int count = size;
+        if (count >= targets.length) {
+            megamorphic = true;
+            size = 0;
+            return;
+        }
+        targets[count] = declaration;
+        size = count + 1;
+    }
+
+    @Override
+    public String toString() {
+        String state = megamorphic ? "megamorphic"
+                : size == 0 ? "empty"
+                : size == 1 ? "monomorphic"
+                : "polymorphic(" + size + ")";
+        return state + ", " + hits + " hits, " + misses + " misses";
+    }
+}
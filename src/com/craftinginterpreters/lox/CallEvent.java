@@ -0,0 +1,24 @@
+package com.craftinginterpreters.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("jlox.Call")
+@Label("Lox Call")
+@Category("Lox")
+@StackTrace(false)
+@Threshold("10 ms")
+class CallEvent extends Event {
+    @Label("Function")
+    String function;
+
+    @Label("Line")
+    int line;
+
+    @Label("Script")
+    String script;
+}
@@ -0,0 +1,9 @@
+package com.craftinginterpreters.lox;
+
+class Cell {
+    Object value;
+
+    Cell(Object value) {
+        this.value = value;
+    }
+}
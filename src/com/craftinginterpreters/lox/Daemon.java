@@ -0,0 +1,265 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+class Daemon {
+    private static final int STDOUT = 1;
+    private static final int STDERR = 2;
+    private static final int EXIT = 3;
+    private static final String SOURCE = "-";
+    private static final int CACHE_SIZE = 64;
+    private static final long REQUEST_TIMEOUT_SECONDS = 30;
+
+    private static class Scanned {
+        final long modified;
+        final long size;
+        final List<Token> tokens;
+
+        Scanned(long modified, long size, List<Token> tokens) {
+            this.modified = modified;
+            this.size = size;
+            this.tokens = tokens;
+        }
+    }
+
+    private static class FrameStream extends OutputStream {
+        private final DataOutputStream out;
+        private final int kind;
+
+        FrameStream(DataOutputStream out, int kind) {
+            this.out = out;
+            this.kind = kind;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return;
+            out.writeByte(kind);
+            out.writeInt(length);
+            out.write(bytes, offset, length);
+            out.flush();
+        }
+    }
+
+    private final Map<String, Scanned> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Scanned> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final PrintStream log = System.err;
+    private final ExecutorService readers = Executors.newCachedThreadPool();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    private Daemon() {}
+
+    static void serve(String socket) throws IOException {
+        Path path = Paths.get(socket);
+        Files.deleteIfExists(path);
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(path));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    System.err.println("Could not remove socket " + path + ".");
+                }
+            }));
+            System.err.println("Serving on " + path);
+
+            Daemon daemon = new Daemon();
+            for (;;) {
+                try {
+                    SocketChannel client = server.accept();
+                    daemon.readers.execute(() -> daemon.receive(client));
+                } catch (IOException e) {
+                    System.err.println("Could not accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    static int connect(String socket, String script) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+
+            OutputStream request = Channels.newOutputStream(channel);
+            if (script.equals(SOURCE)) {
+                request.write((SOURCE + "\n").getBytes(StandardCharsets.UTF_8));
+                System.in.transferTo(request);
+            } else {
+                String path = Paths.get(script).toAbsolutePath().toString();
+                request.write((path + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            request.flush();
+            channel.shutdownOutput();
+
+            DataInputStream response = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel)));
+            for (;;) {
+                int kind = response.readByte();
+                int length = response.readInt();
+                if (kind == EXIT) {
+                    System.out.flush();
+                    return length;
+                }
+
+                byte[] bytes = response.readNBytes(length);
+                if (bytes.length < length) throw new EOFException();
+                PrintStream out = kind == STDERR ? System.err : System.out;
+                out.write(bytes, 0, bytes.length);
+                out.flush();
+            }
+        } catch (EOFException e) {
+            System.out.flush();
+            System.err.println("Connection to daemon closed before the script finished.");
+            return 74;
+        }
+    }
+
+    private void receive(SocketChannel client) {
+        ScheduledFuture<?> timeout = timer.schedule(() -> close(client), REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        try {
+            InputStream request = new BufferedInputStream(Channels.newInputStream(client));
+            String script = readLine(request);
+            byte[] source = script.equals(SOURCE) ? request.readAllBytes() : null;
+            if (!timeout.cancel(false)) return;
+            runner.execute(() -> respond(client, script, source));
+        } catch (IOException e) {
+            if (!timeout.cancel(false)) {
+                log.println("Request timed out after " + REQUEST_TIMEOUT_SECONDS + " seconds.");
+                return;
+            }
+            log.println("Request failed: " + e.getMessage());
+            close(client);
+        }
+    }
+
+    private void respond(SocketChannel client, String script, byte[] source) {
+        try (client) {
+            handle(client, script, source);
+        } catch (IOException e) {
+            log.println("Request failed: " + e.getMessage());
+        }
+    }
+
+    private void close(SocketChannel client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            log.println("Could not close connection: " + e.getMessage());
+        }
+    }
+
+    private void handle(SocketChannel client, String script, byte[] source) throws IOException {
+        DataOutputStream response = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(client)));
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        System.setOut(new PrintStream(new FrameStream(response, STDOUT), false, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(new FrameStream(response, STDERR), false, StandardCharsets.UTF_8));
+
+        int status;
+        try {
+            status = run(script, source);
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+
+        response.writeByte(EXIT);
+        response.writeInt(status);
+        response.flush();
+    }
+
+    private int run(String script, byte[] source) {
+        try {
+            if (source != null) {
+                Lox.reset("<stdin>");
+                List<Stmt> statements = Lox.compile(new String(source, Charset.defaultCharset()));
+                if (statements != null) Lox.execute(statements);
+            } else {
+                Lox.reset(script);
+                List<Stmt> statements = Lox.compile(scan(Paths.get(script)));
+                if (statements != null) Lox.execute(statements);
+            }
+            Lox.interpreter.closeFiles();
+            return Lox.exitCode();
+        } catch (IOException e) {
+            System.err.println("Could not read '" + script + "': " + e.getMessage());
+            return 66;
+        } catch (StackOverflowError e) {
+            System.err.println("Stack overflow.");
+            return 70;
+        } catch (RuntimeException | Error e) {
+            System.err.println("Internal error: " + e + ".");
+            return 70;
+        }
+    }
+
+    private List<Token> scan(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        String key = path.toString();
+
+        Scanned scanned = cache.get(key);
+        if (scanned != null && scanned.modified == modified && scanned.size == attributes.size()) {
+            return scanned.tokens;
+        }
+
+        String source = new String(Files.readAllBytes(path), Charset.defaultCharset());
+        List<Token> tokens = Lox.scan(source, 1);
+        if (Lox.hadError) {
+            cache.remove(key);
+        } else {
+            cache.put(key, new Scanned(modified, attributes.size(), tokens));
+        }
+        return tokens;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = in.read(); b != -1 && b != '\n'; b = in.read()) {
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+}
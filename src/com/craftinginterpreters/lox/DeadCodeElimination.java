@@ -0,0 +1,146 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class DeadCodeElimination extends AstRewriter {
+    @Override
+    List<Stmt> rewrite(List<Stmt> statements) {
+        List<Stmt> result = new ArrayList<>(statements.size());
+        boolean changed = false;
+
+        for (int i = 0; i < statements.size(); i++) {
+            Stmt statement = statements.get(i);
+            Stmt rewritten = rewrite(statement);
+            if (rewritten != statement) changed = true;
+
+            if (rewritten instanceof Stmt.Block block && !declares(block)) {
+                result.addAll(block.statements);
+                changed = true;
+            } else if (rewritten != null) {
+                result.add(rewritten);
+            }
+
+            if (terminates(rewritten)) {
+                if (i < statements.size() - 1) changed = true;
+                break;
+            }
+        }
+
+        return changed ? result : statements;
+    }
+
+    private Stmt body(Stmt stmt) {
+        Stmt body = rewrite(stmt);
+        return body == null ? new Stmt.Block(new ArrayList<>()) : body;
+    }
+
+    private static boolean declares(Stmt.Block block) {
+        for (Stmt statement : block.statements) {
+            if (statement instanceof Stmt.Var || statement instanceof Stmt.Function
+                    || statement instanceof Stmt.Class) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean terminates(Stmt stmt) {
+        if (stmt instanceof Stmt.Return || stmt instanceof Stmt.ReturnCall || stmt instanceof Stmt.Break) {
+            return true;
+        }
+        if (stmt instanceof Stmt.Block block) {
+            return !block.statements.isEmpty() && terminates(block.statements.get(block.statements.size() - 1));
+        }
+        if (stmt instanceof Stmt.If branch) {
+            return terminates(branch.thenBranch) && terminates(branch.elseBranch);
+        }
+        return false;
+    }
+
+    private static boolean isPure(Expr expr) {
+        if (expr instanceof Expr.Literal || expr instanceof Expr.This || expr instanceof Expr.Function) return true;
+        if (expr instanceof Expr.Variable variable) return variable.slot != null;
+        if (expr instanceof Expr.Grouping grouping) return isPure(grouping.expression);
+        if (expr instanceof Expr.Logical logical) return isPure(logical.left) && isPure(logical.right);
+        if (expr instanceof Expr.Ternary ternary) {
+            return isPure(ternary.condition) && isPure(ternary.onTrue) && isPure(ternary.onFalse);
+        }
+        if (expr instanceof Expr.Unary unary) {
+            if (unary.operator.type == TokenType.BANG) return isPure(unary.right);
+            return unary.right instanceof Expr.Literal literal && Numbers.isNumber(literal.value);
+        }
+        if (expr instanceof Expr.Binary binary) {
+            switch (binary.operator.type) {
+                case EQUAL_EQUAL, BANG_EQUAL -> {
+                    return isPure(binary.left) && isPure(binary.right);
+                }
+                case PLUS -> {
+                    if (binary.left instanceof Expr.Literal left && binary.right instanceof Expr.Literal right
+                            && left.value instanceof String && right.value instanceof String) {
+                        return true;
+                    }
+                }
+                default -> { }
+            }
+            return binary.left instanceof Expr.Literal left && Numbers.isNumber(left.value)
+                    && binary.right instanceof Expr.Literal right && Numbers.isNumber(right.value);
+        }
+        return false;
+    }
+
+    @Override
+    public Stmt visit(Stmt.Block stmt) {
+        List<Stmt> statements = rewrite(stmt.statements);
+        if (statements.isEmpty()) return null;
+        if (statements == stmt.statements) return stmt;
+        return new Stmt.Block(statements);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Expression stmt) {
+        if (isPure(stmt.expression)) return null;
+        return super.visit(stmt);
+    }
+
+    @Override
+    public Stmt visit(Stmt.For stmt) {
+        Stmt initializer = rewrite(stmt.initializer);
+        Stmt body = body(stmt.body);
+        if (initializer == stmt.initializer && body == stmt.body) return stmt;
+
+        Stmt.For copy = new Stmt.For(stmt.keyword, initializer, stmt.condition, stmt.increment, body);
+        copy.counted = stmt.counted;
+        return copy;
+    }
+
+    @Override
+    public Stmt visit(Stmt.Function stmt) {
+        if (stmt.unused) return null;
+        return super.visit(stmt);
+    }
+
+    @Override
+    public Stmt visit(Stmt.If stmt) {
+        Stmt thenBranch = rewrite(stmt.thenBranch);
+        Stmt elseBranch = rewrite(stmt.elseBranch);
+        if (thenBranch == null && elseBranch == null) return new Stmt.Expression(stmt.condition);
+        if (thenBranch == stmt.thenBranch && elseBranch == stmt.elseBranch) return stmt;
+        if (thenBranch == null) thenBranch = new Stmt.Block(new ArrayList<>());
+        return new Stmt.If(stmt.condition, thenBranch, elseBranch);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Var stmt) {
+        if (!stmt.unused) return super.visit(stmt);
+        if (stmt.initializer == null || isPure(stmt.initializer)) return null;
+        return new Stmt.Expression(rewrite(stmt.initializer));
+    }
+
+    @Override
+    public Stmt visit(Stmt.While stmt) {
+        Stmt body = body(stmt.body);
+        if (body == stmt.body) return stmt;
+        return new Stmt.While(stmt.keyword, stmt.condition, body);
+    }
+}
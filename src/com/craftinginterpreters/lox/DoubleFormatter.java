@@ -0,0 +1,226 @@
+package com.craftinginterpreters.lox;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+class DoubleFormatter {
+    static final int MAX_LENGTH = 26;
+
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final long C_TINY = 3;
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    private static final int H = 17;
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final double PLAIN_LIMIT = 1e7;
+
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+            10_000_000_000_000_000L, 100_000_000_000_000_000L,
+    };
+
+    private static class Table {
+        static final long[] G = powersOfTen();
+    }
+
+    private DoubleFormatter() {}
+
+    static String toString(double value) {
+        byte[] buffer = new byte[MAX_LENGTH];
+        int length = format(value, buffer, 0);
+        return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    static String toString(long value) {
+        byte[] buffer = new byte[MAX_LENGTH];
+        int length = format(value, buffer, 0);
+        return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    static int format(long value, byte[] buffer, int at) {
+        if (value <= -PLAIN_LIMIT || value >= PLAIN_LIMIT) return format((double) value, buffer, at);
+        int start = at;
+        if (value < 0) buffer[at++] = '-';
+        return integer(Math.abs(value), buffer, at) - start;
+    }
+
+    static int format(double value, byte[] buffer, int at) {
+        long bits = Double.doubleToRawLongBits(value);
+        int start = at;
+        if (bits < 0) buffer[at++] = '-';
+
+        double magnitude = Math.abs(value);
+        if (magnitude < PLAIN_LIMIT && magnitude == (long) magnitude) {
+            return integer((long) magnitude, buffer, at) - start;
+        }
+        if (Double.isNaN(value)) return ascii("NaN", buffer, start) - start;
+        if (Double.isInfinite(value)) return ascii("Infinity", buffer, at) - start;
+
+        long t = bits & (C_MIN - 1);
+        int bq = (int) (bits >>> (P - 1)) & 0x7FF;
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) return digits(f, 0, buffer, at) - start;
+            }
+            return decimal(-mq, c, 0, buffer, at) - start;
+        }
+        if (t < C_TINY) return decimal(Q_MIN, 10 * t, -1, buffer, at) - start;
+        return decimal(Q_MIN, t, 0, buffer, at) - start;
+    }
+
+    private static int decimal(int q, long c, int dk, byte[] buffer, int at) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+
+        long g1 = Table.G[2 * (k - K_MIN)];
+        long g0 = Table.G[2 * (k - K_MIN) + 1];
+
+        long vb = roundToOdd(g1, g0, cb << h);
+        long vbl = roundToOdd(g1, g0, cbl << h);
+        long vbr = roundToOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            long sp10 = s / 10 * 10;
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) return digits(upin ? sp10 : tp10, k, buffer, at);
+        }
+
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) return digits(uin ? s : t, k + dk, buffer, at);
+
+        long cmp = vb - (s + t << 1);
+        return digits(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buffer, at);
+    }
+
+    private static long roundToOdd(long g1, long g0, long cp) {
+        long x1 = Math.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = Math.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    private static int digits(long f, int e, byte[] buffer, int at) {
+        int length = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+        if (f >= POW10[length]) length++;
+        f *= POW10[H - length];
+        e += length;
+
+        int significant = H;
+        while (f % 10 == 0) {
+            f /= 10;
+            significant--;
+        }
+
+        if (0 < e && e <= 7) {
+            if (significant <= e) {
+                at = fill(f, significant, buffer, at);
+                for (int i = significant; i < e; i++) {
+                    buffer[at++] = '0';
+                }
+                return at;
+            }
+            long fraction = POW10[significant - e];
+            at = fill(f / fraction, e, buffer, at);
+            buffer[at++] = '.';
+            return fill(f % fraction, significant - e, buffer, at);
+        }
+
+        if (-3 < e && e <= 0) {
+            buffer[at++] = '0';
+            buffer[at++] = '.';
+            for (int i = e; i < 0; i++) {
+                buffer[at++] = '0';
+            }
+            return fill(f, significant, buffer, at);
+        }
+
+        long fraction = POW10[significant - 1];
+        at = fill(f / fraction, 1, buffer, at);
+        buffer[at++] = '.';
+        at = significant > 1 ? fill(f % fraction, significant - 1, buffer, at) : fill(0, 1, buffer, at);
+        buffer[at++] = 'E';
+        int exponent = e - 1;
+        if (exponent < 0) {
+            buffer[at++] = '-';
+            exponent = -exponent;
+        }
+        return integer(exponent, buffer, at);
+    }
+
+    private static int integer(long value, byte[] buffer, int at) {
+        int length = 1;
+        while (length < POW10.length && value >= POW10[length]) length++;
+        return fill(value, length, buffer, at);
+    }
+
+    private static int fill(long value, int length, byte[] buffer, int at) {
+        for (int i = at + length - 1; i >= at; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return at + length;
+    }
+
+    private static int ascii(String text, byte[] buffer, int at) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer[at++] = (byte) text.charAt(i);
+        }
+        return at;
+    }
+
+    private static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    private static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    private static long[] powersOfTen() {
+        long[] g = new long[2 * (K_MAX - K_MIN + 1)];
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int e = -k;
+            int shift = 125 - flog2pow10(e);
+            BigInteger scaled;
+            if (e >= 0) {
+                BigInteger power = BigInteger.TEN.pow(e);
+                scaled = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+            } else {
+                scaled = BigInteger.ONE.shiftLeft(shift).divide(BigInteger.TEN.pow(-e));
+            }
+            scaled = scaled.add(BigInteger.ONE);
+            g[2 * (k - K_MIN)] = scaled.shiftRight(63).longValue();
+            g[2 * (k - K_MIN) + 1] = scaled.longValue() & MASK_63;
+        }
+        return g;
+    }
+}
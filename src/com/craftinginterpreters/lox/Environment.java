@@ -4,17 +4,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 class Environment {
-    final Environment enclosing;
     private final Map<String, Object> values = new HashMap<>();
 
-    Environment() {
-        this.enclosing = null;
-    }
-
-    Environment(Environment enclosing) {
-        this.enclosing = enclosing;
-    }
-
     void define(String name, Object value) {
         values.put(name, value);
     }
@@ -24,8 +15,6 @@ class Environment {
             return values.get(name.lexeme);
         }
 
-        if (enclosing != null) return enclosing.get(name);
-
         throw new RuntimeError(name, "Undefined variable '" + name.lexeme + "'.");
     }
 
@@ -35,29 +24,6 @@ class Environment {
             return;
         }
 
-        if (enclosing != null) {
-            enclosing.assign(name, value);
-            return;
-        }
-
         throw new RuntimeError(name, "Undefined variable '" + name.lexeme + "'.");
     }
-
-    Object getAt(int distance, String lexeme) {
-        return ancestor(distance).values.get(lexeme);
-    }
-
-    void assignAt(int distance, Token name, Object value) {
-        ancestor(distance).values.put(name.lexeme, value);
-    }
-
-    Environment ancestor(int distance) {
-        Environment environment = this;
-        for (int i = 0; i < distance; i++) {
-            assert environment != null;
-            environment = environment.enclosing;
-        }
-
-        return environment;
-    }
 }
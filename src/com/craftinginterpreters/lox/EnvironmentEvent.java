@@ -0,0 +1,24 @@
+package com.craftinginterpreters.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("jlox.EnvironmentAllocation")
+@Label("Lox Environment Allocation")
+@Category("Lox")
+@StackTrace(false)
+@Enabled(false)
+class EnvironmentEvent extends Event {
+    @Label("Function")
+    String function;
+
+    @Label("Line")
+    int line;
+
+    @Label("Script")
+    String script;
+}
@@ -6,10 +6,15 @@ abstract class Expr {
     interface Visitor<R> {
         R visit(Assign expr);
         R visit(Binary expr);
+        R visit(Cached expr);
         R visit(Call expr);
+        R visit(Compare expr);
+        R visit(Compound expr);
+        R visit(CompoundSet expr);
         R visit(Function expr);
         R visit(Get expr);
         R visit(Grouping expr);
+        R visit(Inline expr);
         R visit(Literal expr);
         R visit(Logical expr);
         R visit(Set expr);
@@ -29,6 +34,8 @@ abstract class Expr {
             this.value = value;
         }
 
+        Slot slot;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -46,6 +53,25 @@ abstract class Expr {
             this.right = right;
         }
 
+        final Feedback feedback = new Feedback();
+        Type operands = Type.UNKNOWN;
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visit(this);
+        }
+    }
+
+    static class Cached extends Expr {
+        final Expr expression;
+
+        Cached(Expr expression) {
+            this.expression = expression;
+        }
+
+        int slot;
+        boolean lazy;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -63,6 +89,71 @@ abstract class Expr {
             this.arguments = arguments;
         }
 
+        final Feedback feedback = new Feedback();
+        final CallCache cache = new CallCache();
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visit(this);
+        }
+    }
+
+    static class Compare extends Expr {
+        final Expr left;
+        final Token operator;
+        final Expr right;
+
+        Compare(Expr left, Token operator, Expr right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        final Feedback feedback = new Feedback();
+        Type operands = Type.UNKNOWN;
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visit(this);
+        }
+    }
+
+    static class Compound extends Expr {
+        final Token name;
+        final Token operator;
+        final Expr value;
+
+        Compound(Token name, Token operator, Expr value) {
+            this.name = name;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        Slot slot;
+        final Feedback feedback = new Feedback();
+        Type operands = Type.UNKNOWN;
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visit(this);
+        }
+    }
+
+    static class CompoundSet extends Expr {
+        final Expr object;
+        final Token name;
+        final Token operator;
+        final Expr value;
+
+        CompoundSet(Expr object, Token name, Token operator, Expr value) {
+            this.object = object;
+            this.name = name;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        final Feedback feedback = new Feedback();
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -78,6 +169,11 @@ abstract class Expr {
             this.body = body;
         }
 
+        Slot[] parameters;
+        Slot[] upvalues;
+        int frameSize;
+        Type[] guards;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -112,6 +208,25 @@ abstract class Expr {
         }
     }
 
+    static class Inline extends Expr {
+        final Expr.Call call;
+        final Expr.Function target;
+        final Expr body;
+
+        Inline(Expr.Call call, Expr.Function target, Expr body) {
+            this.call = call;
+            this.target = target;
+            this.body = body;
+        }
+
+        int base;
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visit(this);
+        }
+    }
+
     static class Literal extends Expr {
         final Object value;
 
@@ -136,6 +251,9 @@ abstract class Expr {
             this.right = right;
         }
 
+        final Feedback feedback = new Feedback();
+        Type operands = Type.UNKNOWN;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -213,6 +331,9 @@ abstract class Expr {
             this.right = right;
         }
 
+        final Feedback feedback = new Feedback();
+        Type operands = Type.UNKNOWN;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -226,6 +347,8 @@ abstract class Expr {
             this.name = name;
         }
 
+        Slot slot;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -0,0 +1,381 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class ExpressionCaching extends AstRewriter {
+    private static class Effects extends AstRewriter {
+        final Set<String> assigned = new HashSet<>();
+        boolean calls = false;
+        boolean stores = false;
+
+        void assign(Token name, Slot slot) {
+            assigned.add(slot == null ? name.lexeme : slot.toString());
+        }
+
+        boolean assigned(Token name, Slot slot) {
+            return assigned.contains(slot == null ? name.lexeme : slot.toString());
+        }
+
+        @Override
+        public Expr visit(Expr.Assign expr) {
+            assign(expr.name, expr.slot);
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Call expr) {
+            calls = true;
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Compound expr) {
+            assign(expr.name, expr.slot);
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.CompoundSet expr) {
+            stores = true;
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Function expr) {
+            return expr;
+        }
+
+        @Override
+        public Expr visit(Expr.Inline expr) {
+            calls = true;
+            rewrite(expr.call);
+            return expr;
+        }
+
+        @Override
+        public Expr visit(Expr.Set expr) {
+            stores = true;
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Super expr) {
+            calls = true;
+            return expr;
+        }
+
+        @Override
+        public Stmt visit(Stmt.Class stmt) {
+            assign(stmt.name, stmt.slot);
+            return super.visit(stmt);
+        }
+
+        @Override
+        public Stmt visit(Stmt.Function stmt) {
+            assign(stmt.name, stmt.slot);
+            return stmt;
+        }
+
+        @Override
+        public Stmt visit(Stmt.Var stmt) {
+            assign(stmt.name, stmt.slot);
+            return super.visit(stmt);
+        }
+    }
+
+    private static class Targets extends AstRewriter {
+        final Set<Expr.Function> functions = new HashSet<>();
+
+        @Override
+        public Expr visit(Expr.Inline expr) {
+            functions.add(expr.target);
+            return super.visit(expr);
+        }
+    }
+
+    private class Hoister extends AstRewriter {
+        private final Effects effects;
+        final List<Integer> slots = new ArrayList<>();
+
+        Hoister(Effects effects) {
+            this.effects = effects;
+        }
+
+        @Override
+        Expr rewrite(Expr expr) {
+            if (expr == null || !isOperation(expr) || !invariant(expr)) return super.rewrite(expr);
+
+            Expr.Cached cached = new Expr.Cached(expr);
+            cached.slot = allocate();
+            cached.lazy = true;
+            slots.add(cached.slot);
+            return cached;
+        }
+
+        private boolean invariant(Expr expr) {
+            if (expr instanceof Expr.Literal || expr instanceof Expr.This) return true;
+            if (expr instanceof Expr.Grouping grouping) return invariant(grouping.expression);
+            if (expr instanceof Expr.Unary unary) return invariant(unary.right);
+            if (expr instanceof Expr.Binary binary) return invariant(binary.left) && invariant(binary.right);
+            if (expr instanceof Expr.Compare compare) return invariant(compare.left) && invariant(compare.right);
+            if (expr instanceof Expr.Logical logical) return invariant(logical.left) && invariant(logical.right);
+            if (expr instanceof Expr.Get get) return !effects.calls && !effects.stores && invariant(get.object);
+            if (expr instanceof Expr.Variable variable) {
+                if (effects.assigned(variable.name, variable.slot)) return false;
+                return !effects.calls || (variable.slot != null && variable.slot.kind == Slot.Kind.LOCAL);
+            }
+            return false;
+        }
+
+        @Override
+        public Expr visit(Expr.Cached expr) {
+            return expr;
+        }
+
+        @Override
+        public Expr visit(Expr.Function expr) {
+            return expr;
+        }
+
+        @Override
+        public Expr visit(Expr.Inline expr) {
+            Expr.Call call = (Expr.Call) super.visit(expr.call);
+            if (call == expr.call) return expr;
+
+            Expr.Inline copy = new Expr.Inline(call, expr.target, expr.body);
+            copy.base = expr.base;
+            return copy;
+        }
+
+        @Override
+        public Stmt visit(Stmt.Function stmt) {
+            return stmt;
+        }
+
+        @Override
+        public Stmt visit(Stmt.Class stmt) {
+            return stmt;
+        }
+    }
+
+    private int frameSize = 0;
+    private Set<Expr.Function> inlined = Set.of();
+
+    List<Stmt> optimize(List<Stmt> statements, Interpreter interpreter) {
+        Targets targets = new Targets();
+        targets.rewrite(statements);
+        inlined = targets.functions;
+
+        frameSize = interpreter.reservedSlots();
+        List<Stmt> result = rewrite(statements);
+        interpreter.reserveSlots(frameSize);
+        return result;
+    }
+
+    private int allocate() {
+        return frameSize++;
+    }
+
+    private static boolean isOperation(Expr expr) {
+        while (expr instanceof Expr.Grouping grouping) expr = grouping.expression;
+        return expr instanceof Expr.Binary
+                || expr instanceof Expr.Compare
+                || expr instanceof Expr.Unary
+                || expr instanceof Expr.Logical
+                || expr instanceof Expr.Get;
+    }
+
+    @Override
+    public Expr visit(Expr.Function expr) {
+        if (inlined.contains(expr)) return expr;
+
+        int enclosing = frameSize;
+        frameSize = expr.frameSize;
+
+        Expr.Function function = (Expr.Function) super.visit(expr);
+        if (function != expr) function.frameSize = frameSize;
+
+        frameSize = enclosing;
+        return function;
+    }
+
+    @Override
+    public Stmt visit(Stmt.For stmt) {
+        Stmt.For loop = (Stmt.For) super.visit(stmt);
+
+        Effects effects = new Effects();
+        effects.rewrite(loop.condition);
+        effects.rewrite(loop.body);
+        effects.rewrite(loop.increment);
+
+        Hoister hoister = new Hoister(effects);
+        Expr condition = hoister.rewrite(loop.condition);
+        Stmt body = hoister.rewrite(loop.body);
+        if (hoister.slots.isEmpty()) return loop;
+
+        Stmt.For copy = new Stmt.For(loop.keyword, loop.initializer, condition, loop.increment, body);
+        copy.counted = loop.counted;
+        copy.invariants = slots(hoister.slots);
+        return copy;
+    }
+
+    @Override
+    public Stmt visit(Stmt.While stmt) {
+        Stmt.While loop = (Stmt.While) super.visit(stmt);
+
+        Effects effects = new Effects();
+        effects.rewrite(loop.condition);
+        effects.rewrite(loop.body);
+
+        Hoister hoister = new Hoister(effects);
+        Expr condition = hoister.rewrite(loop.condition);
+        Stmt body = hoister.rewrite(loop.body);
+        if (hoister.slots.isEmpty()) return loop;
+
+        Stmt.While copy = new Stmt.While(loop.keyword, condition, body);
+        copy.invariants = slots(hoister.slots);
+        return copy;
+    }
+
+    private static int[] slots(List<Integer> slots) {
+        int[] result = new int[slots.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = slots.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public Stmt visit(Stmt.Expression stmt) {
+        Stmt.Expression statement = (Stmt.Expression) super.visit(stmt);
+        Expr expression = eliminate(statement.expression);
+        if (expression == statement.expression) return statement;
+        return new Stmt.Expression(expression);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Print stmt) {
+        Stmt.Print statement = (Stmt.Print) super.visit(stmt);
+        Expr expression = eliminate(statement.expression);
+        if (expression == statement.expression) return statement;
+        return new Stmt.Print(expression);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Return stmt) {
+        Stmt.Return statement = (Stmt.Return) super.visit(stmt);
+        Expr value = eliminate(statement.value);
+        if (value == statement.value) return statement;
+        return new Stmt.Return(statement.keyword, value);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Var stmt) {
+        Stmt.Var statement = (Stmt.Var) super.visit(stmt);
+        Expr initializer = eliminate(statement.initializer);
+        if (initializer == statement.initializer) return statement;
+
+        Stmt.Var copy = new Stmt.Var(statement.name, initializer);
+        copy.slot = statement.slot;
+        copy.unused = statement.unused;
+        return copy;
+    }
+
+    private Expr eliminate(Expr expr) {
+        if (expr == null) return null;
+
+        Expr pure = expr;
+        if (expr instanceof Expr.Assign assign) pure = assign.value;
+        if (expr instanceof Expr.Compound compound) pure = compound.value;
+        if (expr instanceof Expr.Set set) pure = set.value;
+
+        Map<String, Integer> counts = new HashMap<>();
+        if (key(pure, counts) == null) return expr;
+        if (counts.values().stream().noneMatch(count -> count > 1)) return expr;
+
+        Expr value = replace(pure, counts, new HashMap<>());
+        if (value == pure) return expr;
+
+        if (expr instanceof Expr.Assign assign) {
+            Expr.Assign copy = new Expr.Assign(assign.name, value);
+            copy.slot = assign.slot;
+            return copy;
+        }
+        if (expr instanceof Expr.Compound compound) {
+            Expr.Compound copy = new Expr.Compound(compound.name, compound.operator, value);
+            copy.slot = compound.slot;
+            return copy;
+        }
+        if (expr instanceof Expr.Set set) return new Expr.Set(set.object, set.name, value);
+        return value;
+    }
+
+    private static String key(Expr expr, Map<String, Integer> counts) {
+        String key;
+        if (expr instanceof Expr.Literal literal) {
+            Object value = literal.value;
+            key = value == null ? "nil" : value.getClass().getSimpleName() + ":" + value;
+        } else if (expr instanceof Expr.Variable variable) {
+            key = variable.name.lexeme + "@" + variable.slot;
+        } else if (expr instanceof Expr.This) {
+            key = "this";
+        } else if (expr instanceof Expr.Grouping grouping) {
+            return key(grouping.expression, counts);
+        } else if (expr instanceof Expr.Unary unary) {
+            String right = key(unary.right, counts);
+            if (right == null) return null;
+            key = "(" + unary.operator.lexeme + " " + right + ")";
+        } else if (expr instanceof Expr.Binary binary) {
+            String left = key(binary.left, counts);
+            String right = key(binary.right, counts);
+            if (left == null || right == null) return null;
+            key = "(" + binary.operator.lexeme + " " + left + " " + right + ")";
+        } else if (expr instanceof Expr.Get get) {
+            String object = key(get.object, counts);
+            if (object == null) return null;
+            key = "(. " + object + " " + get.name.lexeme + ")";
+        } else {
+            return null;
+        }
+
+        if (isOperation(expr) && !(expr instanceof Expr.Get)) counts.merge(key, 1, Integer::sum);
+        return key;
+    }
+
+    private Expr replace(Expr expr, Map<String, Integer> counts, Map<String, Integer> slots) {
+        String key = key(expr, new HashMap<>());
+        if (counts.getOrDefault(key, 0) > 1) {
+            Expr.Cached cached = new Expr.Cached(expr);
+            Integer slot = slots.get(key);
+            cached.lazy = slot != null;
+            cached.slot = slot != null ? slot : allocate();
+            slots.put(key, cached.slot);
+            return cached;
+        }
+
+        if (expr instanceof Expr.Grouping grouping) {
+            Expr inner = replace(grouping.expression, counts, slots);
+            return inner == grouping.expression ? expr : new Expr.Grouping(inner);
+        }
+        if (expr instanceof Expr.Unary unary) {
+            Expr right = replace(unary.right, counts, slots);
+            return right == unary.right ? expr : new Expr.Unary(unary.operator, right);
+        }
+        if (expr instanceof Expr.Binary binary) {
+            Expr left = replace(binary.left, counts, slots);
+            Expr right = replace(binary.right, counts, slots);
+            if (left == binary.left && right == binary.right) return expr;
+            return new Expr.Binary(left, binary.operator, right);
+        }
+        if (expr instanceof Expr.Get get) {
+            Expr object = replace(get.object, counts, slots);
+            return object == get.object ? expr : new Expr.Get(object, get.name);
+        }
+        return expr;
+    }
+}
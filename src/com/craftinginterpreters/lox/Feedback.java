@@ -0,0 +1,18 @@
+package com.craftinginterpreters.lox;
+
+class Feedback {
+    Specialization state = Specialization.UNINITIALIZED;
+
+    void specialize(Specialization state) {
+        this.state = state;
+    }
+
+    void deoptimize() {
+        state = Specialization.GENERIC;
+    }
+
+    @Override
+    public String toString() {
+        return state.name().toLowerCase();
+    }
+}
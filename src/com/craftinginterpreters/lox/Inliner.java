@@ -0,0 +1,242 @@
+package com.craftinginterpreters.lox;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class Inliner extends AstRewriter {
+    private static final int MAX_SIZE = 16;
+
+    private static class Declarations extends AstRewriter {
+        final Map<String, Expr.Function> functions = new HashMap<>();
+        final Map<String, Expr.Function> methods = new HashMap<>();
+        final Set<String> unstable = new HashSet<>();
+        final Set<String> ambiguous = new HashSet<>();
+
+        @Override
+        public Expr visit(Expr.Assign expr) {
+            if (expr.slot == null) unstable.add(expr.name.lexeme);
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Compound expr) {
+            if (expr.slot == null) unstable.add(expr.name.lexeme);
+            return super.visit(expr);
+        }
+
+        @Override
+        public Stmt visit(Stmt.Class stmt) {
+            if (stmt.slot == null) unstable.add(stmt.name.lexeme);
+            for (Stmt.Function method : stmt.methods) {
+                String name = method.name.lexeme;
+                if (name.equals("init") || methods.containsKey(name)) ambiguous.add(name);
+                methods.put(name, method.function);
+            }
+            return super.visit(stmt);
+        }
+
+        @Override
+        public Stmt visit(Stmt.Function stmt) {
+            if (stmt.slot == null) {
+                String name = stmt.name.lexeme;
+                if (functions.containsKey(name)) unstable.add(name);
+                functions.put(name, stmt.function);
+            }
+            return super.visit(stmt);
+        }
+
+        @Override
+        public Stmt visit(Stmt.Var stmt) {
+            if (stmt.slot == null) unstable.add(stmt.name.lexeme);
+            return super.visit(stmt);
+        }
+    }
+
+    private static class Remapper extends AstRewriter {
+        private final int base;
+        private final int receiver;
+
+        Remapper(int base, int arity) {
+            this.base = base;
+            this.receiver = base + arity;
+        }
+
+        private Slot remap(Slot slot) {
+            if (slot == null || slot.kind != Slot.Kind.LOCAL) return slot;
+            return Slot.local(base + slot.index);
+        }
+
+        @Override
+        public Expr visit(Expr.Assign expr) {
+            Expr.Assign copy = new Expr.Assign(expr.name, rewrite(expr.value));
+            copy.slot = remap(expr.slot);
+            return copy;
+        }
+
+        @Override
+        public Expr visit(Expr.Compound expr) {
+            Expr.Compound copy = new Expr.Compound(expr.name, expr.operator, rewrite(expr.value));
+            copy.slot = remap(expr.slot);
+            return copy;
+        }
+
+        @Override
+        public Expr visit(Expr.This expr) {
+            Expr.Variable copy = new Expr.Variable(expr.keyword);
+            copy.slot = Slot.local(receiver);
+            return copy;
+        }
+
+        @Override
+        public Expr visit(Expr.Variable expr) {
+            if (expr.slot == null || expr.slot.kind != Slot.Kind.LOCAL) return expr;
+
+            Expr.Variable copy = new Expr.Variable(expr.name);
+            copy.slot = remap(expr.slot);
+            return copy;
+        }
+    }
+
+    private static class Shape extends AstRewriter {
+        int size = 0;
+        boolean inlinable = true;
+        final Set<String> calls = new HashSet<>();
+
+        @Override
+        Expr rewrite(Expr expr) {
+            if (expr != null) size++;
+            return super.rewrite(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Call expr) {
+            if (expr.callee instanceof Expr.Variable variable) calls.add(variable.name.lexeme);
+            if (expr.callee instanceof Expr.Get get) calls.add("." + get.name.lexeme);
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Function expr) {
+            inlinable = false;
+            return expr;
+        }
+
+        @Override
+        public Expr visit(Expr.Super expr) {
+            inlinable = false;
+            return expr;
+        }
+    }
+
+    private final Map<String, Expr.Function> functions = new HashMap<>();
+    private final Map<String, Expr.Function> methods = new HashMap<>();
+    private final Map<Expr.Function, Expr> bodies = new HashMap<>();
+    private int next = 0;
+    private int frameSize = 0;
+
+    List<Stmt> inline(List<Stmt> statements, Interpreter interpreter) {
+        Declarations declarations = new Declarations();
+        declarations.rewrite(statements);
+
+        Map<Expr.Function, Set<String>> calls = new HashMap<>();
+        declarations.functions.forEach((name, function) -> {
+            if (!declarations.unstable.contains(name)) candidate(name, function, calls, functions);
+        });
+        declarations.methods.forEach((name, function) -> {
+            if (!declarations.ambiguous.contains(name)) candidate("." + name, function, calls, methods);
+        });
+
+        calls.forEach((function, callees) -> {
+            for (String callee : callees) {
+                if (callee.startsWith(".") ? methods.containsKey(callee.substring(1)) : functions.containsKey(callee)) {
+                    bodies.remove(function);
+                }
+            }
+        });
+        functions.values().removeIf(function -> !bodies.containsKey(function));
+        methods.values().removeIf(function -> !bodies.containsKey(function));
+        if (bodies.isEmpty()) return statements;
+
+        next = frameSize = interpreter.reservedSlots();
+        List<Stmt> result = rewrite(statements);
+        interpreter.reserveSlots(frameSize);
+        return result;
+    }
+
+    private void candidate(String name, Expr.Function function,
+                           Map<Expr.Function, Set<String>> calls, Map<String, Expr.Function> targets) {
+        if (function.body.size() != 1 || function.upvalues.length != 0) return;
+
+        Expr body;
+        if (function.body.get(0) instanceof Stmt.Return ret && ret.value != null) {
+            body = ret.value;
+        } else if (function.body.get(0) instanceof Stmt.ReturnCall ret) {
+            body = ret.call;
+        } else {
+            return;
+        }
+
+        Shape shape = new Shape();
+        shape.rewrite(body);
+        if (!shape.inlinable || shape.size > MAX_SIZE || shape.calls.contains(name)) return;
+
+        String key = name.startsWith(".") ? name.substring(1) : name;
+        targets.put(key, function);
+        bodies.put(function, body);
+        calls.put(function, shape.calls);
+    }
+
+    private Expr.Function target(Expr.Call expr) {
+        Expr.Function target = null;
+        if (expr.callee instanceof Expr.Variable variable && variable.slot == null) {
+            target = functions.get(variable.name.lexeme);
+        } else if (expr.callee instanceof Expr.Get get) {
+            target = methods.get(get.name.lexeme);
+        }
+
+        if (target == null || target.params.size() != expr.arguments.size()) return null;
+        return target;
+    }
+
+    @Override
+    public Expr visit(Expr.Call expr) {
+        Expr.Function target = target(expr);
+        if (target == null) return super.visit(expr);
+
+        int base = next;
+        next += target.params.size() + 1;
+        frameSize = Math.max(frameSize, next);
+        Expr.Call call = (Expr.Call) super.visit(expr);
+        next = base;
+
+        Expr body = new Remapper(base, target.params.size()).rewrite(bodies.get(target));
+        Expr.Inline inline = new Expr.Inline(call, target, body);
+        inline.base = base;
+        return inline;
+    }
+
+    @Override
+    public Stmt visit(Stmt.ReturnCall stmt) {
+        Expr call = rewrite(stmt.call);
+        if (call == stmt.call) return stmt;
+        if (call instanceof Expr.Call rewritten) return new Stmt.ReturnCall(stmt.keyword, rewritten);
+        return new Stmt.Return(stmt.keyword, call);
+    }
+
+    @Override
+    public Expr visit(Expr.Function expr) {
+        int enclosingNext = next;
+        int enclosingFrameSize = frameSize;
+        next = frameSize = expr.frameSize;
+
+        Expr.Function function = (Expr.Function) super.visit(expr);
+        if (function != expr) function.frameSize = frameSize;
+
+        next = enclosingNext;
+        frameSize = enclosingFrameSize;
+        return function;
+    }
+}
@@ -0,0 +1,25 @@
+package com.craftinginterpreters.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("jlox.Instantiation")
+@Label("Lox Class Instantiation")
+@Category("Lox")
+@StackTrace(false)
+class InstantiationEvent extends Event {
+    @Label("Class")
+    String klass;
+
+    @Label("Function")
+    String function;
+
+    @Label("Line")
+    int line;
+
+    @Label("Script")
+    String script;
+}
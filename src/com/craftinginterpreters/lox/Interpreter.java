@@ -1,40 +1,76 @@
 package com.craftinginterpreters.lox;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
-    final Environment globals = new Environment();
-    private Environment environment = globals;
-    final Map<Expr, Integer> locals = new HashMap<>();
+    final Environment globals;
+    String script = "<repl>";
+    Budget budget = Budget.unlimited();
+    private int scriptSlots = 0;
+    private Object[] frame = null;
+    private LoxFunction function = null;
+    private Object escaped = UNBOXED;
+    private final Set<LoxFile> files;
+    private final byte[] output = new byte[DoubleFormatter.MAX_LENGTH + NEWLINE.length];
+
+    private static final Object UNBOXED = new Object();
+    private static final Object UNCACHED = new Object();
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes();
+    private static final ThreadLocal<Set<Object>> PRINTING =
+            ThreadLocal.withInitial(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
 
     Interpreter() {
-        globals.define("clock", new LoxCallable() {
-            @Override
-            public int arity() {
-                return 0;
-            }
-
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                return (double)System.currentTimeMillis() / 1000;
-            }
-
-            @Override
-            public String toString() {
-                return "<native fn>";
-            }
-        });
+        this(new Environment(), ConcurrentHashMap.newKeySet());
+        globals.define("clock", new NativeFunction("clock", 0,
+                (interpreter, arguments) -> (double)System.currentTimeMillis() / 1000));
+        globals.define("List", new NativeFunction("List", 0, (interpreter, arguments) -> new LoxList()));
+        globals.define("Map", new NativeFunction("Map", 0, (interpreter, arguments) -> new LoxMap()));
+        globals.define("open", new NativeFunction("open", 1,
+                (interpreter, arguments) -> interpreter.opened(LoxFile.open(arguments.get(0)))));
+        globals.define("create", new NativeFunction("create", 1,
+                (interpreter, arguments) -> interpreter.opened(LoxFile.create(arguments.get(0)))));
+        globals.define("nanoClock", new NativeFunction("nanoClock", 0,
+                (interpreter, arguments) -> Benchmark.nanoClock()));
+        globals.define("bench", new NativeFunction("bench", 2,
+                (interpreter, arguments) -> Benchmark.run(interpreter, arguments.get(0), arguments.get(1))));
+        globals.define("memoize", new NativeFunction("memoize", 2,
+                (interpreter, arguments) -> LoxMemo.of(arguments.get(0), arguments.get(1))));
+        globals.define("parallelMap", new NativeFunction("parallelMap", 2,
+                (interpreter, arguments) -> Parallel.map(interpreter, arguments.get(0), arguments.get(1))));
+        globals.define("parallelReduce", new NativeFunction("parallelReduce", 3,
+                (interpreter, arguments) -> Parallel.reduce(interpreter,
+                        arguments.get(0), arguments.get(1), arguments.get(2))));
+    }
+
+    private Interpreter(Environment globals, Set<LoxFile> files) {
+        this.globals = globals;
+        this.files = files;
+    }
+
+    Interpreter worker() {
+        Interpreter worker = new Interpreter(globals, files);
+        worker.script = script;
+        worker.budget = budget.fork();
+        return worker;
     }
 
     void interpret(List<Stmt> statements) {
+        budget.reset();
+        frame = new Object[scriptSlots];
         try {
             for (Stmt statement: statements) {
                 execute(statement);
             }
         } catch (RuntimeError error) {
+            recordError(error);
             Lox.runtimeError(error);
         }
     }
@@ -42,96 +78,89 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Object visit(Expr.Assign expr) {
         Object value = evaluate(expr.value);
-
-        Integer distance = locals.get(expr);
-        if (distance != null) {
-            environment.assignAt(distance, expr.name, value);
-        } else {
-            globals.assign(expr.name, value);
-        }
-
+        assignVariable(expr.name, expr.slot, value);
         return value;
     }
 
     @Override
     public Object visit(Expr.Binary expr) {
-        Object left = evaluate(expr.left);
-        Object right = evaluate(expr.right);
+        if (expr.operands == Type.STRING) {
+            Object left = evaluate(expr.left);
+            Object right = evaluate(expr.right);
+            if (left instanceof String && right instanceof String) return (String) left + right;
+            return binary(expr.operator, expr.feedback, left, right);
+        }
 
-        switch (expr.operator.type) {
-            case MINUS:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left - (double)right;
-            case PLUS:
-                if (left instanceof Double && right instanceof Double) {
-                    return (double)left + (double)right;
-                }
+        if (expr.operands == Type.NUMBER || expr.feedback.state == Specialization.NUMBER) {
+            if (isLeaf(expr.left) && isLeaf(expr.right)) {
+                return binary(expr.operator, expr.feedback, evaluate(expr.left), evaluate(expr.right));
+            }
 
-                if (left instanceof String && right instanceof String) {
-                    return (String)left + right;
-                }
-                throw new RuntimeError(expr.operator, "Operands must be two numbers or two strings.");
-            case SLASH:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left / (double)right;
-            case STAR:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left * (double)right;
-            case GREATER:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left > (double)right;
-            case GREATER_EQUAL:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left >= (double)right;
-            case LESS:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left < (double)right;
-            case LESS_EQUAL:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left <= (double)right;
-            case BANG_EQUAL:
-                return !isEqual(left, right);
-            case EQUAL_EQUAL:
-                return isEqual(left, right);
+            double left = number(expr.left);
+            if (escaped != UNBOXED) return binary(expr.operator, expr.feedback, takeEscaped(), evaluate(expr.right));
+            double right = number(expr.right);
+            if (escaped != UNBOXED) return binary(expr.operator, expr.feedback, left, takeEscaped());
 
+            if (isArithmetic(expr.operator.type)) return arithmetic(expr.operator.type, left, right);
+            return compare(expr.operator.type, left, right);
         }
 
-        return null;
+        Object left = evaluate(expr.left);
+        Object right = evaluate(expr.right);
+        return binary(expr.operator, expr.feedback, left, right);
+    }
+
+    @Override
+    public Object visit(Expr.Cached expr) {
+        Object value = frame[expr.slot];
+        if (expr.lazy && value != UNCACHED) return value;
+
+        value = evaluate(expr.expression);
+        frame[expr.slot] = value instanceof LoxFunction ? UNCACHED : value;
+        return value;
     }
 
     @Override
     public Object visit(Expr.Call expr) {
-        Object callee = evaluate(expr.callee);
+        return call(expr);
+    }
 
-        List<Object> arguments = new ArrayList<>();
-        for (Expr argument: expr.arguments) {
-            arguments.add(evaluate(argument));
-        }
+    @Override
+    public Object visit(Expr.Compare expr) {
+        return compare(expr);
+    }
 
-        if (!(callee instanceof LoxCallable function)) {
-            throw new RuntimeError(expr.paren, "Can only call functions and classes.");
-        }
+    @Override
+    public Object visit(Expr.Compound expr) {
+        Object current = lookUpVariable(expr.name, expr.slot);
+        Object value = compound(expr.operator, expr.operands, expr.feedback, current, expr.value);
+        assignVariable(expr.name, expr.slot, value);
+        return value;
+    }
 
-        if (arguments.size() != function.arity()) {
-            throw new RuntimeError(
-                    expr.paren,
-                    "Expected " + function.arity() + " arguments but got " + arguments.size() + "."
-            );
+    @Override
+    public Object visit(Expr.CompoundSet expr) {
+        Object object = evaluate(expr.object);
+
+        if (!(object instanceof LoxInstance instance)) {
+            throw new RuntimeError(expr.name, "Only instances have fields.");
         }
 
-        return function.call(this, arguments);
+        Object value = compound(expr.operator, Type.UNKNOWN, expr.feedback, instance.get(expr.name), expr.value);
+        instance.set(expr.name, value);
+        return value;
     }
 
     @Override
     public Object visit(Expr.Function expr) {
-        return new LoxFunction(null, expr, environment, false);
+        return closure(null, expr);
     }
 
     @Override
     public Object visit(Expr.Get expr) {
         Object object = evaluate(expr.object);
-        if (object instanceof LoxInstance) {
-            return ((LoxInstance)object).get(expr.name);
+        if (object instanceof LoxObject) {
+            return ((LoxObject)object).get(expr.name);
         }
         throw new RuntimeError(expr.name, "Only instances have properties.");
     }
@@ -141,6 +170,28 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return evaluate(expr.expression);
     }
 
+    @Override
+    public Object visit(Expr.Inline expr) {
+        Object callee = evaluate(expr.call.callee);
+        if (!(callee instanceof LoxFunction target) || target.declaration != expr.target) {
+            return call(expr.call, callee);
+        }
+
+        List<Expr> arguments = expr.call.arguments;
+        for (int i = 0; i < arguments.size(); i++) {
+            frame[expr.base + i] = evaluate(arguments.get(i));
+        }
+        frame[expr.base + arguments.size()] = target.receiver;
+
+        budget.backEdge(expr.call.paren);
+        try {
+            return evaluate(expr.body);
+        } catch (RuntimeError error) {
+            error.unwind(target, expr.call.paren);
+            throw error;
+        }
+    }
+
     @Override
     public Object visit(Expr.Literal expr) {
         return expr.value;
@@ -150,10 +201,25 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visit(Expr.Logical expr) {
         Object left = evaluate(expr.left);
 
+        boolean truthy;
+        Feedback feedback = expr.feedback;
+        if (expr.operands == Type.BOOLEAN && left instanceof Boolean bool) {
+            truthy = bool;
+        } else if (feedback.state == Specialization.BOOLEAN && left instanceof Boolean bool) {
+            truthy = bool;
+        } else {
+            if (feedback.state == Specialization.UNINITIALIZED) {
+                feedback.specialize(left instanceof Boolean ? Specialization.BOOLEAN : Specialization.GENERIC);
+            } else {
+                feedback.deoptimize();
+            }
+            truthy = isTruthy(left);
+        }
+
         if (expr.operator.type == TokenType.OR) {
-            if (isTruthy(left)) return left;
+            if (truthy) return left;
         } else {
-            if (!isTruthy(left)) return left;
+            if (!truthy) return left;
         }
 
         return evaluate(expr.right);
@@ -174,9 +240,8 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visit(Expr.Super expr) {
-        int distance = locals.get(expr);
-        LoxClass superclass = (LoxClass) environment.getAt(distance, "super");
-        LoxInstance object = (LoxInstance) environment.getAt(distance - 1, "this");
+        LoxClass superclass = function.klass.superclass;
+        LoxInstance object = function.receiver;
 
         LoxFunction method = superclass.findMethod(expr.method.lexeme);
 
@@ -198,16 +263,52 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visit(Expr.This expr) {
-        return lookUpVariable(expr.keyword, expr);
+        return function.receiver;
     }
 
     @Override
     public Object visit(Expr.Unary expr) {
-        Object right = evaluate(expr.right);
+        if (expr.operands == Type.BOOLEAN) {
+            Object right = evaluate(expr.right);
+            if (right instanceof Boolean) return right;
+            return unary(expr.operator, expr.feedback, right);
+        }
 
-        return switch (expr.operator.type) {
+        if (expr.operands == Type.NUMBER || expr.feedback.state == Specialization.NUMBER) {
+            double right = number(expr.right);
+            if (escaped == UNBOXED) return -right;
+            return unary(expr.operator, expr.feedback, takeEscaped());
+        }
+
+        return unary(expr.operator, expr.feedback, evaluate(expr.right));
+    }
+
+    private Object unary(Token operator, Feedback feedback, Object right) {
+        switch (feedback.state) {
+            case NUMBER:
+                if (right instanceof Double number) return -number;
+                if (right instanceof Long integer) return Numbers.negate(integer);
+                feedback.deoptimize();
+                break;
+            case BOOLEAN:
+                if (right instanceof Boolean bool) return bool;
+                feedback.deoptimize();
+                break;
+            case UNINITIALIZED:
+                if (operator.type == TokenType.MINUS && Numbers.isNumber(right)) {
+                    feedback.specialize(Specialization.NUMBER);
+                } else if (operator.type == TokenType.BANG && right instanceof Boolean) {
+                    feedback.specialize(Specialization.BOOLEAN);
+                } else {
+                    feedback.deoptimize();
+                }
+                break;
+        }
+
+        return switch (operator.type) {
             case MINUS -> {
-                checkNumberOperand(expr.operator, right);
+                checkNumberOperand(operator, right);
+                if (right instanceof Long integer) yield Numbers.negate(integer);
                 yield -(double) right;
             }
             case BANG -> isTruthy(right);
@@ -217,12 +318,12 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visit(Expr.Variable expr) {
-        return lookUpVariable(expr.name, expr);
+        return lookUpVariable(expr.name, expr.slot);
     }
 
     @Override
     public Void visit(Stmt.Block stmt) {
-        executeBlock(stmt.statements, new Environment(environment));
+        executeBlock(stmt.statements);
         return null;
     }
 
@@ -242,26 +343,16 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             }
         }
 
-        environment.define(stmt.name.lexeme, null);
-
-        if (stmt.superclass != null) {
-            environment = new Environment(environment);
-            environment.define("super", superclass);
-        }
+        defineVariable(stmt.name, stmt.slot, null);
 
         Map<String, LoxFunction> methods = new HashMap<>();
+        LoxClass klass = new LoxClass(stmt.name.lexeme, (LoxClass)superclass, methods);
         for (Stmt.Function method : stmt.methods) {
-            LoxFunction function = new LoxFunction(method.name, method.function, environment, method.name.lexeme.equals("init"));
+            LoxFunction function = new LoxFunction(method.name, method.function, capture(method.function), method.name.lexeme.equals("init"), klass, null);
             methods.put(method.name.lexeme, function);
         }
 
-        LoxClass klass = new LoxClass(stmt.name.lexeme, (LoxClass)superclass, methods);
-
-        if (superclass != null) {
-            environment = environment.enclosing;
-        }
-
-        environment.assign(stmt.name, klass);
+        assignVariable(stmt.name, stmt.slot, klass);
         return null;
     }
 
@@ -271,16 +362,107 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visit(Stmt.For stmt) {
+        if (stmt.invariants != null) uncache(stmt.invariants);
+        if (stmt.counted) {
+            executeCountedLoop(stmt);
+            return null;
+        }
+
+        if (stmt.initializer != null) execute(stmt.initializer);
+        executeLoop(stmt);
+        return null;
+    }
+
+    private void executeLoop(Stmt.For stmt) {
+        try {
+            while (stmt.condition == null || test(stmt.condition)) {
+                execute(stmt.body);
+                if (stmt.increment != null) evaluate(stmt.increment);
+                budget.backEdge(stmt.keyword);
+            }
+        } catch (Break ignored) {
+
+        }
+    }
+
+    private void executeCountedLoop(Stmt.For stmt) {
+        Stmt.Var initializer = (Stmt.Var) stmt.initializer;
+        Object start = initializer.initializer == null ? null : evaluate(initializer.initializer);
+        int slot = initializer.slot.index;
+        frame[slot] = start;
+        if (!Numbers.isNumber(start)) {
+            executeLoop(stmt);
+            return;
+        }
+
+        Expr.Binary condition = (Expr.Binary) stmt.condition;
+        Expr.Binary increment = (Expr.Binary) ((Expr.Assign) stmt.increment).value;
+        Object step = increment.right instanceof Expr.Literal literal
+                ? literal.value
+                : ((Expr.Literal) increment.left).value;
+        boolean down = increment.operator.type == TokenType.MINUS;
+
+        try {
+            if (start instanceof Long first && step instanceof Long by) {
+                long counter = first;
+                long delta = down ? -by : by;
+                while (counter >= -Numbers.MAX_EXACT && counter <= Numbers.MAX_EXACT) {
+                    if (!compare(condition.operator.type, counter, bound(condition))) return;
+
+                    execute(stmt.body);
+                    counter += delta;
+                    frame[slot] = Numbers.valueOf(counter);
+                    budget.backEdge(stmt.keyword);
+                }
+                start = (double) counter;
+            }
+
+            double counter = Numbers.toDouble(start);
+            double delta = down ? -Numbers.toDouble(step) : Numbers.toDouble(step);
+            while (compare(condition.operator.type, counter, bound(condition))) {
+                execute(stmt.body);
+                counter += delta;
+                frame[slot] = counter;
+                budget.backEdge(stmt.keyword);
+            }
+        } catch (Break ignored) {
+
+        }
+    }
+
+    private double bound(Expr.Binary condition) {
+        double bound = number(condition.right);
+        if (escaped != UNBOXED) {
+            takeEscaped();
+            throw new RuntimeError(condition.operator, "Operands must be numbers.");
+        }
+        return bound;
+    }
+
+    private static boolean compare(TokenType operator, double left, double right) {
+        return switch (operator) {
+            case LESS -> left < right;
+            case LESS_EQUAL -> left <= right;
+            case GREATER -> left > right;
+            case GREATER_EQUAL -> left >= right;
+            case EQUAL_EQUAL -> Double.doubleToLongBits(left) == Double.doubleToLongBits(right);
+            case BANG_EQUAL -> Double.doubleToLongBits(left) != Double.doubleToLongBits(right);
+            default -> throw new IllegalArgumentException(operator.toString());
+        };
+    }
+
     @Override
     public Void visit(Stmt.Function stmt) {
-        LoxFunction function = new LoxFunction(stmt.name, stmt.function, environment, false);
-        environment.define(stmt.name.lexeme, function);
+        defineVariable(stmt.name, stmt.slot, null);
+        assignVariable(stmt.name, stmt.slot, closure(stmt.name, stmt.function));
         return null;
     }
 
     @Override
     public Void visit(Stmt.If stmt) {
-        if (isTruthy(evaluate(stmt.condition))) {
+        if (test(stmt.condition)) {
             execute(stmt.thenBranch);
         } else if (stmt.elseBranch != null) {
             execute(stmt.elseBranch);
@@ -292,10 +474,24 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visit(Stmt.Print stmt) {
         Object value = evaluate(stmt.expression);
+        if (value instanceof Long integer) {
+            print(DoubleFormatter.format(integer, output, 0));
+            return null;
+        }
+        if (value instanceof Double number) {
+            print(DoubleFormatter.format(number, output, 0));
+            return null;
+        }
+
         System.out.println(stringify(value));
         return null;
     }
 
+    private void print(int length) {
+        System.arraycopy(NEWLINE, 0, output, length, NEWLINE.length);
+        System.out.write(output, 0, length + NEWLINE.length);
+    }
+
     @Override
     public Void visit(Stmt.Return stmt) {
         Object value = null;
@@ -304,6 +500,11 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         throw new Return(value);
     }
 
+    @Override
+    public Void visit(Stmt.ReturnCall stmt) {
+        throw new Return(call(stmt.call));
+    }
+
     @Override
     public Void visit(Stmt.Var stmt) {
         Object value = null;
@@ -311,15 +512,17 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             value = evaluate(stmt.initializer);
         }
 
-        environment.define(stmt.name.lexeme, value);
+        defineVariable(stmt.name, stmt.slot, value);
         return null;
     }
 
     @Override
     public Void visit(Stmt.While stmt) {
+        if (stmt.invariants != null) uncache(stmt.invariants);
         try {
-            while (isTruthy(evaluate(stmt.condition))) {
+            while (test(stmt.condition)) {
                 execute(stmt.body);
+                budget.backEdge(stmt.keyword);
             }
         } catch (Break ignored) {
 
@@ -328,26 +531,402 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return null;
     }
 
-    void executeBlock(List<Stmt> statements, Environment environment) {
-        Environment previous = this.environment;
+    private void uncache(int[] slots) {
+        for (int slot : slots) {
+            frame[slot] = UNCACHED;
+        }
+    }
+
+    void executeBlock(List<Stmt> statements) {
+        for (Stmt statement: statements) {
+            execute(statement);
+        }
+    }
+
+    void executeFunction(LoxFunction function, Object[] frame) {
+        Object[] previousFrame = this.frame;
+        LoxFunction previousFunction = this.function;
         try {
-            this.environment = environment;
+            this.frame = frame;
+            this.function = function;
+            executeBlock(function.declaration.body);
+        } catch (RuntimeError error) {
+            recordError(error);
+            throw error;
+        } finally {
+            this.frame = previousFrame;
+            this.function = previousFunction;
+        }
+    }
 
-            for (Stmt statement: statements) {
-                execute(statement);
+    private LoxFunction closure(Token name, Expr.Function declaration) {
+        Cell[] upvalues = capture(declaration);
+        if (function == null) return new LoxFunction(name, declaration, upvalues, false, null, null);
+        return new LoxFunction(name, declaration, upvalues, false, function.klass, function.receiver);
+    }
+
+    private Cell[] capture(Expr.Function declaration) {
+        Slot[] sources = declaration.upvalues;
+        Cell[] upvalues = new Cell[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            Slot source = sources[i];
+            upvalues[i] = source.kind == Slot.Kind.CELL
+                    ? (Cell) frame[source.index]
+                    : function.upvalues[source.index];
+        }
+        return upvalues;
+    }
+
+    Object invoke(LoxCallable callee, List<Object> arguments, Token site) {
+        budget.enter(site);
+        if (callee instanceof LoxClass) budget.allocate(site);
+
+        CallEvent event = new CallEvent();
+        event.begin();
+
+        try {
+            return callee.call(this, arguments);
+        } catch (RuntimeError error) {
+            if (error.token == null) error.token = site;
+            error.unwind(callee, site);
+            throw error;
+        } finally {
+            budget.exit();
+            event.end();
+            if (event.shouldCommit()) {
+                event.function = nameOf(callee);
+                event.line = site.line;
+                event.script = script;
+                event.commit();
             }
+            if (callee instanceof LoxClass klass) instantiated(klass, site);
+        }
+    }
+
+    Object callback(LoxCallable callee, List<Object> arguments) {
+        budget.enter(null);
+        if (callee instanceof LoxClass) budget.allocate((Token) null);
+
+        try {
+            return callee.call(this, arguments);
+        } catch (RuntimeError error) {
+            error.unwind(callee, null);
+            throw error;
         } finally {
-            this.environment = previous;
+            budget.exit();
+        }
+    }
+
+    private LoxFile opened(LoxFile file) {
+        files.add(file);
+        return file;
+    }
+
+    void closed(LoxFile file) {
+        files.remove(file);
+    }
+
+    void closeFiles() throws IOException {
+        IOException failure = null;
+        for (LoxFile file : files) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        files.clear();
+        if (failure != null) throw failure;
+    }
+
+    static String nameOf(LoxCallable callee) {
+        if (callee == null) return "<script>";
+        if (callee instanceof LoxFunction function) return function.qualifiedName();
+        if (callee instanceof LoxClass klass) return klass.name + ".init";
+        if (callee instanceof NativeFunction function) return function.name;
+        if (callee instanceof LoxMemo memo) return nameOf(memo.function);
+        return callee.toString();
+    }
+
+    private void instantiated(LoxClass klass, Token site) {
+        InstantiationEvent event = new InstantiationEvent();
+        if (event.isEnabled()) {
+            event.klass = klass.name;
+            event.function = nameOf(function);
+            event.line = site.line;
+            event.script = script;
+            event.commit();
+        }
+    }
+
+    void environmentAllocated(Expr site) {
+        budget.allocate(site);
+        EnvironmentEvent event = new EnvironmentEvent();
+        if (event.isEnabled()) {
+            event.function = nameOf(function);
+            event.line = LineFinder.of(site);
+            event.script = script;
+            event.commit();
+        }
+    }
+
+    private void recordError(RuntimeError error) {
+        if (error.recorded) return;
+        error.recorded = true;
+
+        RuntimeErrorEvent event = new RuntimeErrorEvent();
+        if (event.isEnabled()) {
+            event.message = error.getMessage();
+            event.function = nameOf(function);
+            event.line = error.token.line;
+            event.script = script;
+            event.commit();
+        }
+    }
+
+    private Object binary(Token operator, Feedback feedback, Object left, Object right) {
+        switch (feedback.state) {
+            case NUMBER:
+                if (left instanceof Double a && right instanceof Double b) {
+                    if (isArithmetic(operator.type)) return arithmetic(operator.type, a, b);
+                    return compare(operator.type, a, b);
+                }
+                if (left instanceof Long a && right instanceof Long b) {
+                    if (isArithmetic(operator.type)) return Numbers.arithmetic(operator.type, a, b);
+                    return compare(operator.type, a, b);
+                }
+                if (Numbers.isNumber(left) && Numbers.isNumber(right)) break;
+                feedback.deoptimize();
+                break;
+            case STRING:
+                if (left instanceof String a && right instanceof String b) return a + b;
+                feedback.deoptimize();
+                break;
+            case UNINITIALIZED:
+                if (Numbers.isNumber(left) && Numbers.isNumber(right)) {
+                    feedback.specialize(Specialization.NUMBER);
+                } else if (operator.type == TokenType.PLUS && left instanceof String && right instanceof String) {
+                    feedback.specialize(Specialization.STRING);
+                } else {
+                    feedback.deoptimize();
+                }
+                break;
+        }
+
+        return binary(operator, left, right);
+    }
+
+    private Object compound(Token operator, Type operands, Feedback feedback, Object current, Expr operand) {
+        if ((operands == Type.NUMBER || feedback.state == Specialization.NUMBER) && current instanceof Double left) {
+            double right = number(operand);
+            if (escaped == UNBOXED) return arithmetic(operator.type, left, right);
+            return binary(operator, feedback, current, takeEscaped());
         }
+
+        return binary(operator, feedback, current, evaluate(operand));
+    }
+
+    private double number(Expr expr) {
+        if (expr instanceof Expr.Binary binary
+                && (binary.operands == Type.NUMBER || binary.feedback.state == Specialization.NUMBER)
+                && isArithmetic(binary.operator.type)) {
+            double left = number(binary.left);
+            if (escaped != UNBOXED) {
+                return escape(binary(binary.operator, binary.feedback, takeEscaped(), evaluate(binary.right)));
+            }
+            double right = number(binary.right);
+            if (escaped != UNBOXED) return escape(binary(binary.operator, binary.feedback, left, takeEscaped()));
+            return arithmetic(binary.operator.type, left, right);
+        }
+
+        if (expr instanceof Expr.Unary unary
+                && (unary.operands == Type.NUMBER || unary.feedback.state == Specialization.NUMBER)
+                && unary.operator.type == TokenType.MINUS) {
+            double right = number(unary.right);
+            if (escaped != UNBOXED) return escape(unary(unary.operator, unary.feedback, takeEscaped()));
+            return -right;
+        }
+
+        if (expr instanceof Expr.Grouping grouping) return number(grouping.expression);
+
+        return escape(evaluate(expr));
+    }
+
+    private double escape(Object value) {
+        if (value instanceof Double number) return number;
+        if (value instanceof Long integer) return integer;
+        escaped = value;
+        return 0;
+    }
+
+    private Object takeEscaped() {
+        Object value = escaped;
+        escaped = UNBOXED;
+        return value;
+    }
+
+    private static boolean isLeaf(Expr expr) {
+        return expr instanceof Expr.Variable || expr instanceof Expr.Literal;
+    }
+
+    private static boolean isArithmetic(TokenType operator) {
+        return switch (operator) {
+            case MINUS, PLUS, SLASH, STAR -> true;
+            default -> false;
+        };
+    }
+
+    private static double arithmetic(TokenType operator, double left, double right) {
+        return switch (operator) {
+            case MINUS -> left - right;
+            case PLUS -> left + right;
+            case SLASH -> left / right;
+            case STAR -> left * right;
+            default -> throw new IllegalArgumentException(operator.toString());
+        };
+    }
+
+    private Object binary(Token operator, Object left, Object right) {
+        if (left instanceof Long a && right instanceof Long b && isArithmetic(operator.type)) {
+            return Numbers.arithmetic(operator.type, a, b);
+        }
+
+        switch (operator.type) {
+            case MINUS:
+                checkNumberOperands(operator, left, right);
+                return Numbers.toDouble(left) - Numbers.toDouble(right);
+            case PLUS:
+                if (Numbers.isNumber(left) && Numbers.isNumber(right)) {
+                    return Numbers.toDouble(left) + Numbers.toDouble(right);
+                }
+
+                if (left instanceof String && right instanceof String) {
+                    return (String)left + right;
+                }
+                throw new RuntimeError(operator, "Operands must be two numbers or two strings.");
+            case SLASH:
+                checkNumberOperands(operator, left, right);
+                return Numbers.toDouble(left) / Numbers.toDouble(right);
+            case STAR:
+                checkNumberOperands(operator, left, right);
+                return Numbers.toDouble(left) * Numbers.toDouble(right);
+            case GREATER:
+                checkNumberOperands(operator, left, right);
+                return Numbers.toDouble(left) > Numbers.toDouble(right);
+            case GREATER_EQUAL:
+                checkNumberOperands(operator, left, right);
+                return Numbers.toDouble(left) >= Numbers.toDouble(right);
+            case LESS:
+                checkNumberOperands(operator, left, right);
+                return Numbers.toDouble(left) < Numbers.toDouble(right);
+            case LESS_EQUAL:
+                checkNumberOperands(operator, left, right);
+                return Numbers.toDouble(left) <= Numbers.toDouble(right);
+            case BANG_EQUAL:
+                return !isEqual(left, right);
+            case EQUAL_EQUAL:
+                return isEqual(left, right);
+
+        }
+
+        return null;
+    }
+
+    private Object call(Expr.Call expr) {
+        return call(expr, evaluate(expr.callee));
+    }
+
+    private Object call(Expr.Call expr, Object callee) {
+        List<Object> arguments = new ArrayList<>(expr.arguments.size());
+        for (Expr argument: expr.arguments) {
+            arguments.add(evaluate(argument));
+        }
+
+        if (callee instanceof LoxFunction target && expr.cache.hit(target.declaration)) {
+            return invoke(target, arguments, expr.paren);
+        }
+
+        LoxCallable function;
+        Feedback feedback = expr.feedback;
+        if (feedback.state == Specialization.FUNCTION && callee instanceof LoxFunction loxFunction) {
+            function = loxFunction;
+        } else {
+            if (!(callee instanceof LoxCallable callable)) {
+                feedback.deoptimize();
+                throw new RuntimeError(expr.paren, "Can only call functions and classes.");
+            }
+
+            Specialization kind = callable instanceof LoxFunction ? Specialization.FUNCTION
+                    : callable instanceof LoxClass ? Specialization.CLASS
+                    : Specialization.NATIVE;
+            if (feedback.state == Specialization.UNINITIALIZED) {
+                feedback.specialize(kind);
+            } else if (feedback.state != kind) {
+                feedback.deoptimize();
+            }
+            function = callable;
+        }
+
+        if (arguments.size() != function.arity()) {
+            throw new RuntimeError(
+                    expr.paren,
+                    "Expected " + function.arity() + " arguments but got " + arguments.size() + "."
+            );
+        }
+
+        if (function instanceof LoxFunction target) expr.cache.add(target.declaration);
+        return invoke(function, arguments, expr.paren);
+    }
+
+    private boolean compare(Expr.Compare expr) {
+        if (expr.operands == Type.NUMBER || expr.feedback.state == Specialization.NUMBER) {
+            double left = number(expr.left);
+            if (escaped != UNBOXED) return compare(expr, takeEscaped(), evaluate(expr.right));
+            double right = number(expr.right);
+            if (escaped != UNBOXED) return compare(expr, left, takeEscaped());
+            return compare(expr.operator.type, left, right);
+        }
+
+        return compare(expr, evaluate(expr.left), evaluate(expr.right));
+    }
+
+    private boolean compare(Expr.Compare expr, Object left, Object right) {
+        Feedback feedback = expr.feedback;
+        if (feedback.state == Specialization.NUMBER) {
+            if (left instanceof Double a && right instanceof Double b) return compare(expr.operator.type, a, b);
+            if (Numbers.isNumber(left) && Numbers.isNumber(right)) {
+                return compare(expr.operator.type, Numbers.toDouble(left), Numbers.toDouble(right));
+            }
+            feedback.deoptimize();
+        } else if (feedback.state == Specialization.UNINITIALIZED) {
+            feedback.specialize(Numbers.isNumber(left) && Numbers.isNumber(right)
+                    ? Specialization.NUMBER
+                    : Specialization.GENERIC);
+        }
+
+        switch (expr.operator.type) {
+            case EQUAL_EQUAL:
+                return isEqual(left, right);
+            case BANG_EQUAL:
+                return !isEqual(left, right);
+        }
+
+        checkNumberOperands(expr.operator, left, right);
+        return compare(expr.operator.type, Numbers.toDouble(left), Numbers.toDouble(right));
+    }
+
+    private boolean test(Expr condition) {
+        if (condition instanceof Expr.Compare compare) return compare(compare);
+        return isTruthy(evaluate(condition));
     }
 
     private void checkNumberOperand(Token operator, Object operand) {
-        if (operand instanceof Double) return;
+        if (Numbers.isNumber(operand)) return;
         throw new RuntimeError(operator, "Operand must be a number.");
     }
 
     private void checkNumberOperands(Token operator, Object left, Object right) {
-        if (left instanceof Double && right instanceof Double) return;
+        if (Numbers.isNumber(left) && Numbers.isNumber(right)) return;
         throw new RuntimeError(operator, "Operands must be numbers.");
     }
 
@@ -357,44 +936,76 @@ class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return true;
     }
 
-    private boolean isEqual(Object a, Object b) {
+    static boolean isEqual(Object a, Object b) {
         if (a == null && b == null) return true;
         if (a == null) return false;
+        if (a instanceof Long && Numbers.isNumber(b) || b instanceof Long && a instanceof Double) {
+            return Numbers.equal(a, b);
+        }
         return a.equals(b);
     }
 
-    private String stringify(Object object) {
+    static String stringify(Object object) {
         if (object == null) return "nil";
+        if (object instanceof Double number) return DoubleFormatter.toString(number);
+        if (object instanceof Long integer) return DoubleFormatter.toString(integer);
+        return object.toString();
+    }
 
-        if (object instanceof Double) {
-            String text = object.toString();
-            if (text.endsWith(".0")) {
-                text = text.substring(0, text.length() - 2);
-            }
-            return text;
-        }
+    static boolean startPrinting(Object container) {
+        return PRINTING.get().add(container);
+    }
 
-        return object.toString();
+    static void finishPrinting(Object container) {
+        PRINTING.get().remove(container);
     }
 
-    private Object lookUpVariable(Token name, Expr expr) {
-        Integer distance = locals.get(expr);
-        if (distance != null) {
-            return environment.getAt(distance, name.lexeme);
+    private Object lookUpVariable(Token name, Slot slot) {
+        if (slot == null) return globals.get(name);
+
+        return switch (slot.kind) {
+            case LOCAL -> frame[slot.index];
+            case CELL -> ((Cell) frame[slot.index]).value;
+            case UPVALUE -> function.upvalues[slot.index].value;
+        };
+    }
+
+    private void defineVariable(Token name, Slot slot, Object value) {
+        if (slot == null) {
+            globals.define(name.lexeme, value);
+        } else if (slot.kind == Slot.Kind.CELL) {
+            frame[slot.index] = new Cell(value);
         } else {
-            return globals.get(name);
+            frame[slot.index] = value;
+        }
+    }
+
+    private void assignVariable(Token name, Slot slot, Object value) {
+        if (slot == null) {
+            globals.assign(name, value);
+            return;
         }
+
+        switch (slot.kind) {
+            case LOCAL -> frame[slot.index] = value;
+            case CELL -> ((Cell) frame[slot.index]).value = value;
+            case UPVALUE -> function.upvalues[slot.index].value = value;
+        }
+    }
+
+    void reserveSlots(int count) {
+        scriptSlots = count;
     }
 
-    void resolve(Expr expr, int depth) {
-        locals.put(expr, depth);
+    int reservedSlots() {
+        return scriptSlots;
     }
 
     private Object evaluate(Expr expr) {
         return expr.accept(this);
     }
 
-    private void execute(Stmt stmt) {
+    void execute(Stmt stmt) {
         stmt.accept(this);
     }
 }
@@ -0,0 +1,186 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+class LineFinder implements Expr.Visitor<Integer>, Stmt.Visitor<Integer> {
+    private static final LineFinder INSTANCE = new LineFinder();
+    static final int UNKNOWN = -1;
+
+    private LineFinder() {}
+
+    static int of(Stmt stmt) {
+        return stmt == null ? UNKNOWN : stmt.accept(INSTANCE);
+    }
+
+    static int of(Expr expr) {
+        return expr == null ? UNKNOWN : expr.accept(INSTANCE);
+    }
+
+    private static int first(List<? extends Stmt> statements) {
+        for (Stmt statement : statements) {
+            int line = of(statement);
+            if (line != UNKNOWN) return line;
+        }
+        return UNKNOWN;
+    }
+
+    private static int either(int line, int fallback) {
+        return line != UNKNOWN ? line : fallback;
+    }
+
+    @Override
+    public Integer visit(Expr.Assign expr) {
+        return expr.name.line;
+    }
+
+    @Override
+    public Integer visit(Expr.Binary expr) {
+        return either(of(expr.left), expr.operator.line);
+    }
+
+    @Override
+    public Integer visit(Expr.Cached expr) {
+        return of(expr.expression);
+    }
+
+    @Override
+    public Integer visit(Expr.Call expr) {
+        return either(of(expr.callee), expr.paren.line);
+    }
+
+    @Override
+    public Integer visit(Expr.Compare expr) {
+        return either(of(expr.left), expr.operator.line);
+    }
+
+    @Override
+    public Integer visit(Expr.Compound expr) {
+        return expr.name.line;
+    }
+
+    @Override
+    public Integer visit(Expr.CompoundSet expr) {
+        return either(of(expr.object), expr.name.line);
+    }
+
+    @Override
+    public Integer visit(Expr.Function expr) {
+        if (!expr.params.isEmpty()) return expr.params.get(0).line;
+        return first(expr.body);
+    }
+
+    @Override
+    public Integer visit(Expr.Get expr) {
+        return either(of(expr.object), expr.name.line);
+    }
+
+    @Override
+    public Integer visit(Expr.Grouping expr) {
+        return of(expr.expression);
+    }
+
+    @Override
+    public Integer visit(Expr.Inline expr) {
+        return of(expr.call);
+    }
+
+    @Override
+    public Integer visit(Expr.Literal expr) {
+        return UNKNOWN;
+    }
+
+    @Override
+    public Integer visit(Expr.Logical expr) {
+        return either(of(expr.left), expr.operator.line);
+    }
+
+    @Override
+    public Integer visit(Expr.Set expr) {
+        return either(of(expr.object), expr.name.line);
+    }
+
+    @Override
+    public Integer visit(Expr.Super expr) {
+        return expr.keyword.line;
+    }
+
+    @Override
+    public Integer visit(Expr.Ternary expr) {
+        return either(of(expr.condition), either(of(expr.onTrue), of(expr.onFalse)));
+    }
+
+    @Override
+    public Integer visit(Expr.This expr) {
+        return expr.keyword.line;
+    }
+
+    @Override
+    public Integer visit(Expr.Unary expr) {
+        return expr.operator.line;
+    }
+
+    @Override
+    public Integer visit(Expr.Variable expr) {
+        return expr.name.line;
+    }
+
+    @Override
+    public Integer visit(Stmt.Block stmt) {
+        return first(stmt.statements);
+    }
+
+    @Override
+    public Integer visit(Stmt.Break stmt) {
+        return stmt.keyword.line;
+    }
+
+    @Override
+    public Integer visit(Stmt.Class stmt) {
+        return stmt.name.line;
+    }
+
+    @Override
+    public Integer visit(Stmt.Expression stmt) {
+        return of(stmt.expression);
+    }
+
+    @Override
+    public Integer visit(Stmt.For stmt) {
+        return stmt.keyword.line;
+    }
+
+    @Override
+    public Integer visit(Stmt.Function stmt) {
+        return stmt.name.line;
+    }
+
+    @Override
+    public Integer visit(Stmt.If stmt) {
+        return either(of(stmt.condition), of(stmt.thenBranch));
+    }
+
+    @Override
+    public Integer visit(Stmt.Print stmt) {
+        return of(stmt.expression);
+    }
+
+    @Override
+    public Integer visit(Stmt.Return stmt) {
+        return stmt.keyword.line;
+    }
+
+    @Override
+    public Integer visit(Stmt.ReturnCall stmt) {
+        return stmt.keyword.line;
+    }
+
+    @Override
+    public Integer visit(Stmt.Var stmt) {
+        return stmt.name.line;
+    }
+
+    @Override
+    public Integer visit(Stmt.While stmt) {
+        return stmt.keyword.line;
+    }
+}
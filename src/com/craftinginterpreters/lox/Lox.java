@@ -1,63 +1,190 @@
 package com.craftinginterpreters.lox;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.List;
 
 public class Lox {
-    private static final Interpreter interpreter = new Interpreter();
+    static Interpreter interpreter = new Interpreter();
+    private static Profiler profiler = null;
+    private static SpecializationDump specializations = null;
+    private static boolean inferTypes = false;
+    private static boolean dumpOptimized = false;
+    private static long maxSteps = 0;
+    private static long timeout = 0;
+    private static long maxDepth = 0;
+    private static long maxAllocations = 0;
 
     static boolean hadError = false;
     static boolean hadRuntimeError = false;
 
     public static void main(String[] args) throws IOException {
-        if (args.length > 1) {
-            System.out.println("Usage: jlox [script]");
-            System.exit(64);
-        } else if (args.length == 1) {
-            runFile(args[0]);
+        String script = null;
+        String serve = null;
+        String connect = null;
+        boolean profile = false;
+
+        for (String arg : args) {
+            if (arg.equals("--profile")) {
+                profile = true;
+            } else if (arg.equals("--dump-specializations")) {
+                specializations = new SpecializationDump(System.err);
+            } else if (arg.equals("--dump-optimized")) {
+                dumpOptimized = true;
+            } else if (arg.equals("--infer-types")) {
+                inferTypes = true;
+            } else if (arg.startsWith("--max-steps=")) {
+                maxSteps = parseLimit(arg);
+            } else if (arg.startsWith("--timeout=")) {
+                timeout = parseLimit(arg);
+            } else if (arg.startsWith("--max-depth=")) {
+                maxDepth = parseLimit(arg);
+            } else if (arg.startsWith("--max-allocations=")) {
+                maxAllocations = parseLimit(arg);
+            } else if (arg.startsWith("--serve=")) {
+                serve = arg.substring("--serve=".length());
+            } else if (arg.startsWith("--connect=")) {
+                connect = arg.substring("--connect=".length());
+            } else if (arg.startsWith("--") || script != null) {
+                usage();
+            } else {
+                script = arg;
+            }
+        }
+
+        if (connect != null) {
+            if (script == null || serve != null) usage();
+            System.exit(Daemon.connect(connect, script));
+        }
+        if (serve != null) {
+            if (script != null || profile) usage();
+            Daemon.serve(serve);
+            return;
+        }
+
+        if (profile) {
+            profiler = new Profiler(script == null ? "<repl>" : Paths.get(script).getFileName().toString());
+            interpreter = new ProfilingInterpreter(profiler);
+        }
+        interpreter.budget = budget();
+
+        if (script != null) {
+            runFile(script);
         } else {
             runPrompt();
+            writeProfile("repl");
         }
     }
 
+    private static Budget budget() {
+        return new Budget(maxSteps, timeout, maxDepth, maxAllocations);
+    }
+
+    private static long parseLimit(String arg) {
+        try {
+            return Long.parseLong(arg.substring(arg.indexOf('=') + 1));
+        } catch (NumberFormatException e) {
+            usage();
+            return 0;
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Usage: jlox [--profile] [--dump-optimized] [--dump-specializations] [--infer-types] [--max-steps=N] [--timeout=MS] [--max-depth=N] [--max-allocations=N] [--serve=SOCKET | --connect=SOCKET] [script]");
+        System.exit(64);
+    }
+
     private static void runFile(String path) throws IOException {
+        interpreter.script = path;
         byte[] bytes = Files.readAllBytes(Paths.get(path));
         run(new String(bytes, Charset.defaultCharset()));
+        interpreter.closeFiles();
+        writeProfile(Paths.get(path).getFileName().toString());
+
+        int status = exitCode();
+        if (status != 0) System.exit(status);
+    }
+
+    static void reset(String script) {
+        interpreter = new Interpreter();
+        interpreter.budget = budget();
+        interpreter.script = script;
+        hadError = false;
+        hadRuntimeError = false;
+    }
+
+    static int exitCode() {
+        if (hadError) return 65;
+        if (hadRuntimeError) return 70;
+        return 0;
+    }
 
-        if (hadError) System.exit(65);
-        if (hadRuntimeError) System.exit(70);
+    private static void writeProfile(String baseName) throws IOException {
+        if (profiler == null) return;
+        profiler.write(baseName + ".profile", baseName + ".folded");
+        System.err.println("Profile written to " + baseName + ".profile and " + baseName + ".folded");
     }
 
     private static void runPrompt() throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-
-        for (;;) {
-            System.out.print("> ");
-            String line = reader.readLine();
-            if (line == null) break;
-            run(line);
-            hadError = false;
-        }
+        new Repl(System.in).run();
+        interpreter.closeFiles();
     }
 
     private static void run(String source) {
-        Scanner scanner = new Scanner(source);
+        List<Stmt> statements = compile(source);
+        if (statements != null) execute(statements);
+    }
+
+    static List<Stmt> compile(String source) {
+        return compile(source, 1);
+    }
+
+    static List<Stmt> compile(String source, int line) {
+        List<Token> tokens = scan(source, line);
+        return compile(tokens);
+    }
+
+    static List<Token> scan(String source, int line) {
+        PhaseEvent phase = new PhaseEvent("scan", interpreter.script);
+        phase.begin();
+        Scanner scanner = new Scanner(source, line);
         List<Token> tokens = scanner.scanTokens();
+        phase.commit();
+        return tokens;
+    }
 
+    static List<Stmt> compile(List<Token> tokens) {
+        PhaseEvent phase = new PhaseEvent("parse", interpreter.script);
+        phase.begin();
         Parser parser = new Parser(tokens);
         List<Stmt> statements = parser.parse();
+        phase.commit();
 
-        if (hadError) return;
+        if (hadError) return null;
+        phase = new PhaseEvent("resolve", interpreter.script);
+        phase.begin();
         Resolver resolver = new Resolver(interpreter);
-        resolver.resolve(statements);
+        resolver.resolveScript(statements);
+        statements = new DeadCodeElimination().rewrite(statements);
+        statements = new Superinstructions().rewrite(statements);
+        if (profiler == null) statements = new Inliner().inline(statements, interpreter);
+        statements = new ExpressionCaching().optimize(statements, interpreter);
+        if (inferTypes) TypeInference.infer(statements);
+        if (dumpOptimized) System.err.print(new AstPrinter().print(statements));
+        phase.commit();
+
+        return hadError ? null : statements;
+    }
 
-        if (hadError) return;
+    static void execute(List<Stmt> statements) {
+        PhaseEvent phase = new PhaseEvent("execute", interpreter.script);
+        phase.begin();
         interpreter.interpret(statements);
+        phase.commit();
+
+        if (specializations != null) specializations.dump(statements);
     }
 
     static void error(int line, String message) {
@@ -78,7 +205,7 @@ public class Lox {
     }
 
     static void runtimeError(RuntimeError error) {
-        System.err.println(error.getMessage() + "\n[line " + error.token.line + "]");
+        System.err.println(error.getMessage() + error.trace());
         hadRuntimeError = true;
     }
 }
\ No newline at end of file
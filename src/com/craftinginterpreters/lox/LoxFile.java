@@ -0,0 +1,165 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+class LoxFile implements LoxObject {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int READ_LINE = 0;
+    private static final int READ = 1;
+    private static final int WRITE = 2;
+    private static final int WRITE_LINE = 3;
+    private static final int CLOSE = 4;
+    private static final int METHODS = 5;
+
+    private final String path;
+    private final BufferedReader reader;
+    private final BufferedWriter writer;
+    private boolean closed = false;
+    private NativeFunction[] methods = null;
+
+    private LoxFile(String path, BufferedReader reader, BufferedWriter writer) {
+        this.path = path;
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    static LoxFile open(Object path) {
+        if (!(path instanceof String)) throw new RuntimeError("File path must be a string.");
+        try {
+            FileChannel channel = FileChannel.open(Paths.get((String) path), StandardOpenOption.READ);
+            BufferedReader reader = new BufferedReader(
+                    Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+            return new LoxFile((String) path, reader, null);
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeError("Could not open '" + path + "' for reading.");
+        }
+    }
+
+    static LoxFile create(Object path) {
+        if (!(path instanceof String)) throw new RuntimeError("File path must be a string.");
+        try {
+            FileChannel channel = FileChannel.open(Paths.get((String) path), StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            BufferedWriter writer = new BufferedWriter(
+                    Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+            return new LoxFile((String) path, null, writer);
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeError("Could not open '" + path + "' for writing.");
+        }
+    }
+
+    @Override
+    public Object get(Token name) {
+        int method = switch (name.lexeme) {
+            case "readLine" -> READ_LINE;
+            case "read" -> READ;
+            case "write" -> WRITE;
+            case "writeLine" -> WRITE_LINE;
+            case "close" -> CLOSE;
+            default -> throw new RuntimeError(name, "Undefined property '" + name.lexeme + "'.");
+        };
+
+        if (methods == null) methods = new NativeFunction[METHODS];
+        NativeFunction function = methods[method];
+        if (function == null) {
+            function = bind(method);
+            methods[method] = function;
+        }
+        return function;
+    }
+
+    private NativeFunction bind(int method) {
+        return switch (method) {
+            case READ_LINE -> new NativeFunction("File.readLine", 0, (interpreter, arguments) -> readLine());
+            case READ -> new NativeFunction("File.read", 1, (interpreter, arguments) -> read(arguments.get(0)));
+            case WRITE -> new NativeFunction("File.write", 1, (interpreter, arguments) -> {
+                write(Interpreter.stringify(arguments.get(0)));
+                return null;
+            });
+            case WRITE_LINE -> new NativeFunction("File.writeLine", 1, (interpreter, arguments) -> {
+                write(Interpreter.stringify(arguments.get(0)) + "\n");
+                return null;
+            });
+            case CLOSE -> new NativeFunction("File.close", 0, (interpreter, arguments) -> {
+                interpreter.closed(this);
+                try {
+                    close();
+                } catch (IOException e) {
+                    throw failure(e);
+                }
+                return null;
+            });
+            default -> throw new IllegalArgumentException(Integer.toString(method));
+        };
+    }
+
+    private String readLine() {
+        try {
+            return reader().readLine();
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    private String read(Object count) {
+        double number = Numbers.isNumber(count) ? Numbers.toDouble(count) : Double.NaN;
+        if (number != Math.floor(number) || number < 1 || number > Integer.MAX_VALUE) {
+            throw new RuntimeError("Chunk size must be a positive integer.");
+        }
+
+        try {
+            BufferedReader reader = reader();
+            char[] chunk = new char[(int) number];
+            int length = 0;
+            while (length < chunk.length) {
+                int read = reader.read(chunk, length, chunk.length - length);
+                if (read < 0) break;
+                length += read;
+            }
+            return length == 0 ? null : new String(chunk, 0, length);
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    private void write(String text) {
+        if (closed) throw new RuntimeError("File '" + path + "' is closed.");
+        if (writer == null) throw new RuntimeError("File '" + path + "' is not open for writing.");
+
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw failure(e);
+        }
+    }
+
+    private BufferedReader reader() {
+        if (closed) throw new RuntimeError("File '" + path + "' is closed.");
+        if (reader == null) throw new RuntimeError("File '" + path + "' is not open for reading.");
+        return reader;
+    }
+
+    private RuntimeError failure(IOException e) {
+        return new RuntimeError("I/O error on '" + path + "': " + e.getMessage());
+    }
+
+    void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        if (reader != null) reader.close();
+        if (writer != null) writer.close();
+    }
+
+    @Override
+    public String toString() {
+        return "<file " + path + ">";
+    }
+}
@@ -4,21 +4,24 @@ import java.util.List;
 
 class LoxFunction implements LoxCallable {
     private final Token name;
-    private final Expr.Function declaration;
-    private final Environment closure;
+    final Expr.Function declaration;
+    final Cell[] upvalues;
     private final boolean isInitializer;
+    final LoxClass klass;
+    final LoxInstance receiver;
 
-    LoxFunction(Token name, Expr.Function declaration, Environment closure, boolean isInitializer) {
+    LoxFunction(Token name, Expr.Function declaration, Cell[] upvalues, boolean isInitializer,
+                LoxClass klass, LoxInstance receiver) {
         this.name = name;
         this.declaration = declaration;
-        this.closure = closure;
+        this.upvalues = upvalues;
         this.isInitializer = isInitializer;
+        this.klass = klass;
+        this.receiver = receiver;
     }
 
     LoxFunction bind(LoxInstance instance) {
-        Environment environment = new Environment(closure);
-        environment.define("this", instance);
-        return new LoxFunction(this.name, declaration, environment, isInitializer);
+        return new LoxFunction(this.name, declaration, upvalues, isInitializer, klass, instance);
     }
 
     @Override
@@ -28,22 +31,32 @@ class LoxFunction implements LoxCallable {
 
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
-        Environment environment = new Environment(closure);
-        for (int i = 0; i < declaration.params.size(); i++) {
-            environment.define(declaration.params.get(i).lexeme, arguments.get(i));
+        interpreter.environmentAllocated(declaration);
+        Type[] guards = declaration.guards;
+        if (guards != null) TypeInference.guard(declaration, guards, arguments);
+        Object[] frame = new Object[declaration.frameSize];
+        Slot[] parameters = declaration.parameters;
+        for (int i = 0; i < parameters.length; i++) {
+            Object argument = arguments.get(i);
+            frame[i] = parameters[i].kind == Slot.Kind.CELL ? new Cell(argument) : argument;
         }
 
         try {
-            interpreter.executeBlock(declaration.body, environment);
+            interpreter.executeFunction(this, frame);
         } catch (Return returnValue) {
-            if (isInitializer) return closure.getAt(0, "this");
+            if (isInitializer) return receiver;
             return returnValue.value;
         }
 
-        if (isInitializer) return closure.getAt(0, "this");
+        if (isInitializer) return receiver;
         return null;
     }
 
+    String qualifiedName() {
+        String simple = name == null ? "<anonymous>" : name.lexeme;
+        if (klass == null) return simple;
+        return klass.name + "." + simple;
+    }
 
     @Override
     public String toString() {
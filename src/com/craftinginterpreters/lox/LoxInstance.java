@@ -3,7 +3,7 @@ package com.craftinginterpreters.lox;
 import java.util.HashMap;
 import java.util.Map;
 
-class LoxInstance {
+class LoxInstance implements LoxObject {
     private LoxClass klass;
     private final Map<String, Object> fields = new HashMap<>();
 
@@ -11,7 +11,8 @@ class LoxInstance {
         this.klass = klass;
     }
 
-    Object get(Token name) {
+    @Override
+    public Object get(Token name) {
         if (fields.containsKey(name.lexeme)) {
             return fields.get(name.lexeme);
         }
@@ -0,0 +1,167 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+class LoxList implements LoxObject {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int GET = 0;
+    private static final int SET = 1;
+    private static final int PUSH = 2;
+    private static final int POP = 3;
+    private static final int LENGTH = 4;
+    private static final int SLICE = 5;
+    private static final int METHODS = 6;
+
+    private double[] numbers;
+    private Object[] values = null;
+    private int size = 0;
+    private NativeFunction[] methods = null;
+
+    LoxList() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private LoxList(int capacity) {
+        numbers = new double[Math.max(capacity, INITIAL_CAPACITY)];
+    }
+
+    @Override
+    public Object get(Token name) {
+        int method = switch (name.lexeme) {
+            case "get" -> GET;
+            case "set" -> SET;
+            case "push" -> PUSH;
+            case "pop" -> POP;
+            case "length" -> LENGTH;
+            case "slice" -> SLICE;
+            default -> throw new RuntimeError(name, "Undefined property '" + name.lexeme + "'.");
+        };
+
+        if (methods == null) methods = new NativeFunction[METHODS];
+        NativeFunction function = methods[method];
+        if (function == null) {
+            function = bind(method);
+            methods[method] = function;
+        }
+        return function;
+    }
+
+    private NativeFunction bind(int method) {
+        return switch (method) {
+            case GET -> new NativeFunction("List.get", 1,
+                    (interpreter, arguments) -> get(index(arguments.get(0), size)));
+            case SET -> new NativeFunction("List.set", 2, (interpreter, arguments) -> {
+                Object value = arguments.get(1);
+                set(index(arguments.get(0), size), value);
+                return value;
+            });
+            case PUSH -> new NativeFunction("List.push", 1, (interpreter, arguments) -> {
+                push(arguments.get(0));
+                return null;
+            });
+            case POP -> new NativeFunction("List.pop", 0, (interpreter, arguments) -> {
+                if (size == 0) throw new RuntimeError("Can't pop from an empty list.");
+                Object value = get(size - 1);
+                size--;
+                if (values != null) values[size] = null;
+                return value;
+            });
+            case LENGTH -> new NativeFunction("List.length", 0, (interpreter, arguments) -> (double) size);
+            case SLICE -> new NativeFunction("List.slice", 2, (interpreter, arguments) -> {
+                int start = index(arguments.get(0), size + 1);
+                int end = index(arguments.get(1), size + 1);
+                if (end < start) throw new RuntimeError("Slice end must not precede its start.");
+                return slice(start, end);
+            });
+            default -> throw new IllegalArgumentException(Integer.toString(method));
+        };
+    }
+
+    Object get(int index) {
+        if (values == null) return numbers[index];
+        return values[index];
+    }
+
+    void set(int index, Object value) {
+        if (values == null) {
+            if (Numbers.isNumber(value)) {
+                numbers[index] = Numbers.toDouble(value);
+                return;
+            }
+            box();
+        }
+        values[index] = value;
+    }
+
+    void push(Object value) {
+        if (values == null && !Numbers.isNumber(value)) box();
+
+        if (values == null) {
+            if (size == numbers.length) numbers = Arrays.copyOf(numbers, size * 2);
+            numbers[size++] = Numbers.toDouble(value);
+        } else {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    Object[] toArray() {
+        Object[] array = new Object[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = get(i);
+        }
+        return array;
+    }
+
+    private LoxList slice(int start, int end) {
+        LoxList slice = new LoxList(end - start);
+        if (values == null) {
+            System.arraycopy(numbers, start, slice.numbers, 0, end - start);
+        } else {
+            slice.values = new Object[slice.numbers.length];
+            System.arraycopy(values, start, slice.values, 0, end - start);
+            slice.numbers = null;
+        }
+        slice.size = end - start;
+        return slice;
+    }
+
+    private void box() {
+        values = new Object[numbers.length];
+        for (int i = 0; i < size; i++) {
+            values[i] = numbers[i];
+        }
+        numbers = null;
+    }
+
+    private static int index(Object index, int limit) {
+        double number = Numbers.isNumber(index) ? Numbers.toDouble(index) : Double.NaN;
+        if (number != Math.floor(number)) {
+            throw new RuntimeError("List index must be an integer.");
+        }
+        if (number < 0 || number >= limit) {
+            throw new RuntimeError("List index out of range.");
+        }
+        return (int) number;
+    }
+
+    @Override
+    public String toString() {
+        if (!Interpreter.startPrinting(this)) return "[...]";
+
+        try {
+            StringBuilder builder = new StringBuilder("[");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) builder.append(", ");
+                builder.append(Interpreter.stringify(get(i)));
+            }
+            return builder.append("]").toString();
+        } finally {
+            Interpreter.finishPrinting(this);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.craftinginterpreters.lox;
+
+class LoxMap implements LoxObject {
+    private static final int INITIAL_BITS = 3;
+    private static final int GET = 0;
+    private static final int PUT = 1;
+    private static final int REMOVE = 2;
+    private static final int HAS = 3;
+    private static final int SIZE = 4;
+    private static final int KEYS = 5;
+    private static final int VALUES = 6;
+    private static final int METHODS = 7;
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int bits;
+    private int size = 0;
+    private NativeFunction[] methods = null;
+
+    LoxMap() {
+        allocate(INITIAL_BITS);
+    }
+
+    @Override
+    public Object get(Token name) {
+        int method = switch (name.lexeme) {
+            case "get" -> GET;
+            case "put" -> PUT;
+            case "remove" -> REMOVE;
+            case "has" -> HAS;
+            case "size" -> SIZE;
+            case "keys" -> KEYS;
+            case "values" -> VALUES;
+            default -> throw new RuntimeError(name, "Undefined property '" + name.lexeme + "'.");
+        };
+
+        if (methods == null) methods = new NativeFunction[METHODS];
+        NativeFunction function = methods[method];
+        if (function == null) {
+            function = bind(method);
+            methods[method] = function;
+        }
+        return function;
+    }
+
+    private NativeFunction bind(int method) {
+        return switch (method) {
+            case GET -> new NativeFunction("Map.get", 1, (interpreter, arguments) -> get(key(arguments.get(0))));
+            case PUT -> new NativeFunction("Map.put", 2, (interpreter, arguments) -> {
+                Object value = arguments.get(1);
+                put(key(arguments.get(0)), value);
+                return value;
+            });
+            case REMOVE -> new NativeFunction("Map.remove", 1,
+                    (interpreter, arguments) -> remove(key(arguments.get(0))));
+            case HAS -> new NativeFunction("Map.has", 1,
+                    (interpreter, arguments) -> find(key(arguments.get(0))) >= 0);
+            case SIZE -> new NativeFunction("Map.size", 0, (interpreter, arguments) -> (double) size);
+            case KEYS -> new NativeFunction("Map.keys", 0, (interpreter, arguments) -> entries(keys));
+            case VALUES -> new NativeFunction("Map.values", 0, (interpreter, arguments) -> entries(values));
+            default -> throw new IllegalArgumentException(Integer.toString(method));
+        };
+    }
+
+    Object get(Object key) {
+        int index = find(key);
+        return index < 0 ? null : values[index];
+    }
+
+    void put(Object key, Object value) {
+        int hash = hash(key);
+        int mask = keys.length - 1;
+        for (int i = slot(hash); ; i = (i + 1) & mask) {
+            Object existing = keys[i];
+            if (existing == null) {
+                keys[i] = key;
+                values[i] = value;
+                hashes[i] = hash;
+                if (++size > keys.length * 3 / 4) grow();
+                return;
+            }
+            if (hashes[i] == hash && matches(existing, key)) {
+                values[i] = value;
+                return;
+            }
+        }
+    }
+
+    Object remove(Object key) {
+        int index = find(key);
+        if (index < 0) return null;
+
+        Object removed = values[index];
+        int mask = keys.length - 1;
+        int hole = index;
+        for (int i = (hole + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+            int home = slot(hashes[i]);
+            boolean movable = hole <= i ? home <= hole || home > i : home <= hole && home > i;
+            if (movable) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hashes[hole] = hashes[i];
+                hole = i;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(Object key) {
+        int hash = hash(key);
+        int mask = keys.length - 1;
+        for (int i = slot(hash); ; i = (i + 1) & mask) {
+            Object existing = keys[i];
+            if (existing == null) return -1;
+            if (hashes[i] == hash && matches(existing, key)) return i;
+        }
+    }
+
+    private LoxList entries(Object[] source) {
+        LoxList list = new LoxList();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) list.push(source[i]);
+        }
+        return list;
+    }
+
+    private void grow() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        allocate(bits + 1);
+
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null) continue;
+            int i = slot(oldHashes[j]);
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+            hashes[i] = oldHashes[j];
+        }
+    }
+
+    private void allocate(int bits) {
+        this.bits = bits;
+        keys = new Object[1 << bits];
+        values = new Object[1 << bits];
+        hashes = new int[1 << bits];
+    }
+
+    private int slot(int hash) {
+        return (hash * 0x9E3779B9) >>> (32 - bits);
+    }
+
+    static int hash(Object key) {
+        if (Numbers.isNumber(key)) return Numbers.hash(key);
+        if (key instanceof String string) return string.hashCode();
+        return key.hashCode();
+    }
+
+    private static boolean matches(Object existing, Object key) {
+        if (existing == key) return true;
+        if (Numbers.isNumber(existing) && Numbers.isNumber(key)) return Numbers.equal(existing, key);
+        return Interpreter.isEqual(existing, key);
+    }
+
+    private static Object key(Object key) {
+        if (key == null) throw new RuntimeError("Map key can't be nil.");
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        if (!Interpreter.startPrinting(this)) return "{...}";
+
+        try {
+            StringBuilder builder = new StringBuilder("{");
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == null) continue;
+                if (builder.length() > 1) builder.append(", ");
+                builder.append(Interpreter.stringify(keys[i])).append(": ").append(Interpreter.stringify(values[i]));
+            }
+            return builder.append("}").toString();
+        } finally {
+            Interpreter.finishPrinting(this);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+class LoxMemo implements LoxCallable, LoxObject {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int HITS = 0;
+    private static final int MISSES = 1;
+    private static final int EVICTIONS = 2;
+    private static final int SIZE = 3;
+    private static final int CLEAR = 4;
+    private static final int METHODS = 5;
+
+    private static class Entry {
+        final int hash;
+        final Object first;
+        final Object second;
+        final Object[] rest;
+        Object value;
+        Entry next;
+        Entry newer;
+        Entry older;
+
+        Entry(int hash, Object first, Object second, Object[] rest, Object value) {
+            this.hash = hash;
+            this.first = first;
+            this.second = second;
+            this.rest = rest;
+            this.value = value;
+        }
+    }
+
+    final LoxCallable function;
+    private final int arity;
+    private final int maxEntries;
+    private Entry[] table = new Entry[INITIAL_CAPACITY];
+    private Entry newest = null;
+    private Entry oldest = null;
+    private int size = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private NativeFunction[] methods = null;
+
+    LoxMemo(LoxCallable function, int maxEntries) {
+        this.function = function;
+        this.arity = function.arity();
+        this.maxEntries = maxEntries;
+    }
+
+    static LoxMemo of(Object function, Object maxEntries) {
+        if (!(function instanceof LoxCallable callable)) {
+            throw new RuntimeError("Can only memoize functions.");
+        }
+        double limit = Numbers.isNumber(maxEntries) ? Numbers.toDouble(maxEntries) : Double.NaN;
+        if (limit != Math.floor(limit) || limit < 1 || limit > Integer.MAX_VALUE) {
+            throw new RuntimeError("Memo size must be a positive integer.");
+        }
+        return new LoxMemo(callable, (int) limit);
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        int hash = hash(arguments);
+        synchronized (this) {
+            Entry entry = find(hash, arguments);
+            if (entry != null) {
+                hits++;
+                touch(entry);
+                return entry.value;
+            }
+            misses++;
+        }
+
+        Object value = function.call(interpreter, arguments);
+        synchronized (this) {
+            Entry entry = find(hash, arguments);
+            if (entry != null) {
+                entry.value = value;
+                touch(entry);
+            } else {
+                insert(new Entry(hash, argument(arguments, 0), argument(arguments, 1), rest(arguments), value));
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public Object get(Token name) {
+        int method = switch (name.lexeme) {
+            case "hits" -> HITS;
+            case "misses" -> MISSES;
+            case "evictions" -> EVICTIONS;
+            case "size" -> SIZE;
+            case "clear" -> CLEAR;
+            default -> throw new RuntimeError(name, "Undefined property '" + name.lexeme + "'.");
+        };
+
+        if (methods == null) methods = new NativeFunction[METHODS];
+        NativeFunction function = methods[method];
+        if (function == null) {
+            function = bind(method);
+            methods[method] = function;
+        }
+        return function;
+    }
+
+    private NativeFunction bind(int method) {
+        return switch (method) {
+            case HITS -> new NativeFunction("memo.hits", 0, (interpreter, arguments) -> (double) hits);
+            case MISSES -> new NativeFunction("memo.misses", 0, (interpreter, arguments) -> (double) misses);
+            case EVICTIONS -> new NativeFunction("memo.evictions", 0,
+                    (interpreter, arguments) -> (double) evictions);
+            case SIZE -> new NativeFunction("memo.size", 0, (interpreter, arguments) -> (double) size);
+            case CLEAR -> new NativeFunction("memo.clear", 0, (interpreter, arguments) -> {
+                clear();
+                return null;
+            });
+            default -> throw new IllegalArgumentException(Integer.toString(method));
+        };
+    }
+
+    private Entry find(int hash, List<Object> arguments) {
+        for (Entry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+            if (entry.hash == hash && matches(entry, arguments)) return entry;
+        }
+        return null;
+    }
+
+    private boolean matches(Entry entry, List<Object> arguments) {
+        if (arity > 0 && !Interpreter.isEqual(entry.first, arguments.get(0))) return false;
+        if (arity > 1 && !Interpreter.isEqual(entry.second, arguments.get(1))) return false;
+        for (int i = 2; i < arity; i++) {
+            if (!Interpreter.isEqual(entry.rest[i - 2], arguments.get(i))) return false;
+        }
+        return true;
+    }
+
+    private void insert(Entry entry) {
+        if (size == maxEntries) evict();
+        if (size >= table.length * 3 / 4) grow();
+
+        int index = entry.hash & (table.length - 1);
+        entry.next = table[index];
+        table[index] = entry;
+        link(entry);
+        size++;
+    }
+
+    private void evict() {
+        Entry victim = oldest;
+        unlink(victim);
+
+        int index = victim.hash & (table.length - 1);
+        if (table[index] == victim) {
+            table[index] = victim.next;
+        } else {
+            Entry previous = table[index];
+            while (previous.next != victim) previous = previous.next;
+            previous.next = victim.next;
+        }
+        size--;
+        evictions++;
+    }
+
+    private void grow() {
+        Entry[] old = table;
+        table = new Entry[old.length * 2];
+        for (Entry bucket : old) {
+            for (Entry entry = bucket; entry != null; ) {
+                Entry next = entry.next;
+                int index = entry.hash & (table.length - 1);
+                entry.next = table[index];
+                table[index] = entry;
+                entry = next;
+            }
+        }
+    }
+
+    private void touch(Entry entry) {
+        if (entry == newest) return;
+        unlink(entry);
+        link(entry);
+    }
+
+    private void link(Entry entry) {
+        entry.older = newest;
+        entry.newer = null;
+        if (newest != null) newest.newer = entry;
+        newest = entry;
+        if (oldest == null) oldest = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.older != null) entry.older.newer = entry.newer;
+        if (entry.newer != null) entry.newer.older = entry.older;
+        if (oldest == entry) oldest = entry.newer;
+        if (newest == entry) newest = entry.older;
+    }
+
+    private synchronized void clear() {
+        table = new Entry[INITIAL_CAPACITY];
+        newest = null;
+        oldest = null;
+        size = 0;
+    }
+
+    private int hash(List<Object> arguments) {
+        int hash = 1;
+        for (int i = 0; i < arity; i++) {
+            Object argument = arguments.get(i);
+            hash = 31 * hash + (argument == null ? 0 : LoxMap.hash(argument));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static Object argument(List<Object> arguments, int index) {
+        return index < arguments.size() ? arguments.get(index) : null;
+    }
+
+    private Object[] rest(List<Object> arguments) {
+        if (arity <= 2) return null;
+        return arguments.subList(2, arity).toArray();
+    }
+
+    @Override
+    public String toString() {
+        return function.toString();
+    }
+}
@@ -0,0 +1,5 @@
+package com.craftinginterpreters.lox;
+
+interface LoxObject {
+    Object get(Token name);
+}
@@ -0,0 +1,34 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+class NativeFunction implements LoxCallable {
+    interface Body {
+        Object call(Interpreter interpreter, List<Object> arguments);
+    }
+
+    final String name;
+    private final int arity;
+    private final Body body;
+
+    NativeFunction(String name, int arity, Body body) {
+        this.name = name;
+        this.arity = arity;
+        this.body = body;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return body.call(interpreter, arguments);
+    }
+
+    @Override
+    public String toString() {
+        return "<native fn>";
+    }
+}
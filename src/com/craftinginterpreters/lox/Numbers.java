@@ -0,0 +1,74 @@
+package com.craftinginterpreters.lox;
+
+class Numbers {
+    static final long MAX_EXACT = 1L << 53;
+
+    private static final int CACHE_MIN = -128;
+    private static final int CACHE_MAX = 1024;
+    private static final Long[] CACHE = new Long[CACHE_MAX - CACHE_MIN];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = (long) (i + CACHE_MIN);
+        }
+    }
+
+    private Numbers() {}
+
+    static boolean isNumber(Object value) {
+        return value instanceof Double || value instanceof Long;
+    }
+
+    static double toDouble(Object value) {
+        if (value instanceof Long integer) return integer;
+        return (Double) value;
+    }
+
+    static Object valueOf(long value) {
+        if (value >= CACHE_MIN && value < CACHE_MAX) return CACHE[(int) value - CACHE_MIN];
+        if (value < -MAX_EXACT || value > MAX_EXACT) return (double) value;
+        return value;
+    }
+
+    static Object valueOf(double value) {
+        long integer = (long) value;
+        if (integer == value && integer >= -MAX_EXACT && integer <= MAX_EXACT
+                && (integer != 0 || Double.doubleToRawLongBits(value) == 0)) {
+            return valueOf(integer);
+        }
+        return value;
+    }
+
+    static Object negate(long value) {
+        if (value == 0) return -0.0;
+        return valueOf(-value);
+    }
+
+    static Object arithmetic(TokenType operator, long left, long right) {
+        return switch (operator) {
+            case MINUS -> valueOf(left - right);
+            case PLUS -> valueOf(left + right);
+            case SLASH -> (double) left / (double) right;
+            case STAR -> multiply(left, right);
+            default -> throw new IllegalArgumentException(operator.toString());
+        };
+    }
+
+    static boolean equal(Object a, Object b) {
+        if (a instanceof Long x && b instanceof Long y) return x.longValue() == y.longValue();
+        return Double.doubleToLongBits(toDouble(a)) == Double.doubleToLongBits(toDouble(b));
+    }
+
+    static int hash(Object number) {
+        long bits = Double.doubleToLongBits(toDouble(number));
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    private static Object multiply(long left, long right) {
+        long product = left * right;
+        if (Math.multiplyHigh(left, right) != product >> 63 || (product == 0 && (left < 0 || right < 0))) {
+            return (double) left * (double) right;
+        }
+        return valueOf(product);
+    }
+}
@@ -0,0 +1,151 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+class Parallel {
+    private static final int TASKS_PER_WORKER = 8;
+
+    private Parallel() {}
+
+    static LoxList map(Interpreter interpreter, Object list, Object function) {
+        Object[] items = items(list);
+        LoxCallable callee = callable(function, 1, "parallelMap");
+        Object[] results = new Object[items.length];
+        try {
+            ForkJoinPool.commonPool().invoke(new MapTask(interpreter, callee, items, results,
+                    0, items.length, threshold(items.length)));
+        } finally {
+            interpreter.budget.join();
+        }
+
+        LoxList mapped = new LoxList();
+        for (Object result : results) {
+            mapped.push(result);
+        }
+        return mapped;
+    }
+
+    static Object reduce(Interpreter interpreter, Object list, Object function, Object initial) {
+        Object[] items = items(list);
+        LoxCallable callee = callable(function, 2, "parallelReduce");
+        try {
+            return ForkJoinPool.commonPool().invoke(new ReduceTask(interpreter, callee, items, initial,
+                    0, items.length, threshold(items.length)));
+        } finally {
+            interpreter.budget.join();
+        }
+    }
+
+    private static Object[] items(Object list) {
+        if (!(list instanceof LoxList items)) throw new RuntimeError("Expected a list.");
+        return items.toArray();
+    }
+
+    private static LoxCallable callable(Object function, int arity, String name) {
+        if (!(function instanceof LoxCallable callee) || callee.arity() != arity) {
+            throw new RuntimeError(name + " expects a function of " + arity
+                    + (arity == 1 ? " argument." : " arguments."));
+        }
+        return callee;
+    }
+
+    private static int threshold(int size) {
+        int tasks = ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_WORKER;
+        return Math.max(1, size / tasks);
+    }
+
+    @SuppressWarnings("serial")
+    private static class MapTask extends RecursiveAction {
+        private final Interpreter interpreter;
+        private final LoxCallable callee;
+        private final Object[] items;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        MapTask(Interpreter interpreter, LoxCallable callee, Object[] items, Object[] results,
+                int from, int to, int threshold) {
+            this.interpreter = interpreter;
+            this.callee = callee;
+            this.items = items;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new MapTask(interpreter, callee, items, results, from, middle, threshold),
+                        new MapTask(interpreter, callee, items, results, middle, to, threshold));
+                return;
+            }
+
+            Interpreter worker = interpreter.worker();
+            try {
+                for (int i = from; i < to; i++) {
+                    results[i] = worker.callback(callee, Arrays.asList(items[i]));
+                }
+            } finally {
+                worker.budget.release();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class ReduceTask extends RecursiveTask<Object> {
+        private final Interpreter interpreter;
+        private final LoxCallable callee;
+        private final Object[] items;
+        private final Object initial;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        ReduceTask(Interpreter interpreter, LoxCallable callee, Object[] items, Object initial,
+                   int from, int to, int threshold) {
+            this.interpreter = interpreter;
+            this.callee = callee;
+            this.items = items;
+            this.initial = initial;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Object compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                ReduceTask left = new ReduceTask(interpreter, callee, items, initial, from, middle, threshold);
+                ReduceTask right = new ReduceTask(interpreter, callee, items, initial, middle, to, threshold);
+                right.fork();
+                Object leftResult = left.compute();
+                Object rightResult = right.join();
+                Interpreter worker = interpreter.worker();
+                try {
+                    return worker.callback(callee, Arrays.asList(leftResult, rightResult));
+                } finally {
+                    worker.budget.release();
+                }
+            }
+
+            Interpreter worker = interpreter.worker();
+            try {
+                Object accumulator = initial;
+                for (int i = from; i < to; i++) {
+                    accumulator = worker.callback(callee, Arrays.asList(accumulator, items[i]));
+                }
+                return accumulator;
+            } finally {
+                worker.budget.release();
+            }
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.craftinginterpreters.lox;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -92,6 +91,7 @@ class Parser {
     }
 
     private Stmt forStatement() {
+        Token keyword = previous();
         consume(LEFT_PAREN, "Expect '(' after 'for'.");
 
         Stmt initializer;
@@ -117,23 +117,7 @@ class Parser {
 
         Stmt body = statement();
 
-        if (increment != null) {
-            body = new Stmt.Block(
-                    Arrays.asList(
-                            body,
-                            new Stmt.Expression(increment)
-                    )
-            );
-        }
-
-        if (condition == null) condition = new Expr.Literal(true);
-        body = new Stmt.While(condition, body);
-
-        if (initializer != null) {
-            body = new Stmt.Block(Arrays.asList(initializer, body));
-        }
-
-        return body;
+        return new Stmt.For(keyword, initializer, condition, increment, body);
     }
 
     private Stmt ifStatement() {
@@ -164,13 +148,14 @@ class Parser {
     }
 
     private Stmt whileStatement() {
+        Token keyword = previous();
         consume(LEFT_PAREN, "Expect '(' after 'while'.");
         Expr condition = expression();
         consume(RIGHT_PAREN, "Expect ')' after while condition.");
 
         Stmt body = statement();
 
-        return new Stmt.While(condition, body);
+        return new Stmt.While(keyword, condition, body);
     }
 
     private List<Stmt> block() {
@@ -0,0 +1,24 @@
+package com.craftinginterpreters.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("jlox.Phase")
+@Label("Lox Phase")
+@Category("Lox")
+@StackTrace(false)
+class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Script")
+    String script;
+
+    PhaseEvent(String phase, String script) {
+        this.phase = phase;
+        this.script = script;
+    }
+}
@@ -0,0 +1,148 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+class Profiler {
+    private static class FunctionStats {
+        final String name;
+        long calls = 0;
+        long inclusive = 0;
+        long exclusive = 0;
+        int active = 0;
+
+        FunctionStats(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class CallNode {
+        final String name;
+        final FunctionStats stats;
+        final Map<String, CallNode> children = new HashMap<>();
+        long exclusive = 0;
+
+        CallNode(String name, FunctionStats stats) {
+            this.name = name;
+            this.stats = stats;
+        }
+    }
+
+    private static class Frame {
+        final CallNode node;
+        final Frame caller;
+        final long start;
+        long childTime = 0;
+
+        Frame(CallNode node, Frame caller, long start) {
+            this.node = node;
+            this.caller = caller;
+            this.start = start;
+        }
+    }
+
+    private final Map<String, FunctionStats> functions = new HashMap<>();
+    private final Map<Stmt, long[]> statementCounts = new IdentityHashMap<>();
+    private final CallNode root;
+    private Frame current;
+
+    Profiler(String script) {
+        root = new CallNode(script, stats(script));
+        current = new Frame(root, null, System.nanoTime());
+    }
+
+    void count(Stmt stmt) {
+        statementCounts.computeIfAbsent(stmt, key -> new long[1])[0]++;
+    }
+
+    void enter(String name) {
+        CallNode node = current.node.children.get(name);
+        if (node == null) {
+            node = new CallNode(name, stats(name));
+            current.node.children.put(name, node);
+        }
+        node.stats.calls++;
+        node.stats.active++;
+        current = new Frame(node, current, System.nanoTime());
+    }
+
+    void exit() {
+        Frame frame = current;
+        long elapsed = System.nanoTime() - frame.start;
+        long exclusive = elapsed - frame.childTime;
+
+        FunctionStats stats = frame.node.stats;
+        stats.active--;
+        if (stats.active == 0) stats.inclusive += elapsed;
+        stats.exclusive += exclusive;
+        frame.node.exclusive += exclusive;
+
+        current = frame.caller;
+        current.childTime += elapsed;
+    }
+
+    void write(String reportPath, String stacksPath) throws IOException {
+        long elapsed = System.nanoTime() - current.start;
+        root.stats.calls = 1;
+        root.stats.inclusive = elapsed;
+        root.stats.exclusive = elapsed - current.childTime;
+        root.exclusive = root.stats.exclusive;
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Path.of(reportPath), StandardCharsets.UTF_8))) {
+            writeReport(writer);
+        }
+
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Path.of(stacksPath), StandardCharsets.UTF_8))) {
+            writeStacks(writer, root, root.name);
+        }
+    }
+
+    private FunctionStats stats(String name) {
+        return functions.computeIfAbsent(name, FunctionStats::new);
+    }
+
+    private void writeReport(PrintWriter writer) {
+        List<FunctionStats> sorted = new ArrayList<>(functions.values());
+        sorted.sort((a, b) -> Long.compare(b.exclusive, a.exclusive));
+
+        writer.printf("%-40s %12s %14s %14s %12s%n", "function", "calls", "inclusive ms", "exclusive ms", "avg us");
+        for (FunctionStats stats : sorted) {
+            double average = stats.calls == 0 ? 0 : stats.inclusive / 1e3 / stats.calls;
+            writer.printf("%-40s %12d %14.3f %14.3f %12.3f%n",
+                    stats.name, stats.calls, stats.inclusive / 1e6, stats.exclusive / 1e6, average);
+        }
+
+        Map<Integer, Long> lines = new TreeMap<>();
+        for (Map.Entry<Stmt, long[]> entry : statementCounts.entrySet()) {
+            lines.merge(LineFinder.of(entry.getKey()), entry.getValue()[0], Long::sum);
+        }
+
+        List<Map.Entry<Integer, Long>> hottest = new ArrayList<>(lines.entrySet());
+        hottest.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+        writer.println();
+        writer.printf("%-10s %14s%n", "line", "statements");
+        for (Map.Entry<Integer, Long> entry : hottest) {
+            String line = entry.getKey() == LineFinder.UNKNOWN ? "?" : entry.getKey().toString();
+            writer.printf("%-10s %14d%n", line, entry.getValue());
+        }
+    }
+
+    private void writeStacks(PrintWriter writer, CallNode node, String path) {
+        long micros = node.exclusive / 1000;
+        if (micros > 0) writer.println(path + " " + micros);
+
+        for (CallNode child : node.children.values()) {
+            writeStacks(writer, child, path + ";" + child.name);
+        }
+    }
+}
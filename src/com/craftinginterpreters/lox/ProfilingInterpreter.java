@@ -0,0 +1,27 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+class ProfilingInterpreter extends Interpreter {
+    final Profiler profiler;
+
+    ProfilingInterpreter(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    void execute(Stmt stmt) {
+        profiler.count(stmt);
+        super.execute(stmt);
+    }
+
+    @Override
+    Object invoke(LoxCallable callee, List<Object> arguments, Token site) {
+        profiler.enter(nameOf(callee));
+        try {
+            return super.invoke(callee, arguments, site);
+        } finally {
+            profiler.exit();
+        }
+    }
+}
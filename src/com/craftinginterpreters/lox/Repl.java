@@ -0,0 +1,69 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+
+class Repl {
+    private static final String PROMPT = "> ";
+    private static final String CONTINUATION = "... ";
+
+    private final BufferedReader reader;
+    private final StringBuilder entry = new StringBuilder();
+    private int line = 1;
+    private int start = 1;
+    private int depth = 0;
+    private boolean inString = false;
+
+    Repl(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in));
+    }
+
+    void run() throws IOException {
+        for (;;) {
+            System.out.print(entry.length() == 0 ? PROMPT : CONTINUATION);
+            String text = reader.readLine();
+            if (text == null) break;
+
+            if (entry.length() == 0) start = line;
+            entry.append(text).append('\n');
+            line++;
+            scan(text);
+            if ((depth > 0 || inString) && !text.isBlank()) continue;
+            submit();
+        }
+        if (entry.length() > 0) submit();
+    }
+
+    private void scan(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '"') inString = false;
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '(', '{' -> depth++;
+                case ')', '}' -> depth--;
+                case '/' -> {
+                    if (i + 1 < text.length() && text.charAt(i + 1) == '/') return;
+                }
+                default -> {}
+            }
+        }
+    }
+
+    private void submit() {
+        String source = entry.toString();
+        entry.setLength(0);
+        depth = 0;
+        inString = false;
+
+        List<Stmt> statements = Lox.compile(source, start);
+        if (statements != null) Lox.execute(statements);
+        Lox.hadError = false;
+    }
+}
@@ -1,13 +1,44 @@
 package com.craftinginterpreters.lox;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.function.Consumer;
 
 class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+    private static class FunctionScope {
+        final FunctionScope enclosing;
+        final Map<Local, Integer> upvalueIndexes = new HashMap<>();
+        final List<Slot> upvalues = new ArrayList<>();
+        int slots = 0;
+        int frameSize = 0;
+
+        FunctionScope(FunctionScope enclosing) {
+            this.enclosing = enclosing;
+        }
+    }
+
+    private static class Local {
+        final FunctionScope function;
+        final int index;
+        boolean defined = false;
+        boolean captured = false;
+        int assignments = 0;
+        int reads = 0;
+        Stmt declaration = null;
+        final List<Consumer<Slot>> sites = new ArrayList<>();
+
+        Local(FunctionScope function, int index) {
+            this.function = function;
+            this.index = index;
+        }
+    }
+
     private final Interpreter interpreter;
-    private final Stack<Map<String, Boolean>> scopes = new Stack<>();
+    private final Stack<Map<String, Local>> scopes = new Stack<>();
+    private FunctionScope functionScope = new FunctionScope(null);
 
     private FunctionType currentFunction = FunctionType.NONE;
     private ClassType currentClass = ClassType.NONE;
@@ -36,10 +67,16 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         }
     }
 
+    void resolveScript(List<Stmt> statements) {
+        resolve(statements);
+        interpreter.reserveSlots(functionScope.frameSize);
+    }
+
     @Override
     public Void visit(Expr.Assign expr) {
         resolve(expr.value);
-        resolveLocal(expr, expr.name);
+        Local local = resolveLocal(expr.name, slot -> expr.slot = slot);
+        if (local != null) local.assignments++;
         return null;
     }
 
@@ -50,6 +87,12 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visit(Expr.Cached expr) {
+        resolve(expr.expression);
+        return null;
+    }
+
     @Override
     public Void visit(Expr.Call expr) {
         resolve(expr.callee);
@@ -61,6 +104,31 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visit(Expr.Compare expr) {
+        resolve(expr.left);
+        resolve(expr.right);
+        return null;
+    }
+
+    @Override
+    public Void visit(Expr.Compound expr) {
+        resolve(expr.value);
+        Local local = resolveLocal(expr.name, slot -> expr.slot = slot);
+        if (local != null) {
+            local.assignments++;
+            local.reads++;
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Expr.CompoundSet expr) {
+        resolve(expr.value);
+        resolve(expr.object);
+        return null;
+    }
+
     @Override
     public Void visit(Expr.Function expr) {
         resolveFunction(expr, FunctionType.FUNCTION);
@@ -79,6 +147,12 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visit(Expr.Inline expr) {
+        resolve(expr.call);
+        return null;
+    }
+
     @Override
     public Void visit(Expr.Literal expr) {
         return null;
@@ -106,7 +180,6 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
             Lox.error(expr.keyword, "Can't use 'super' in a class with no superclass.");
         }
 
-        resolveLocal(expr, expr.keyword);
         return null;
     }
 
@@ -122,10 +195,8 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     public Void visit(Expr.This expr) {
         if (currentClass == ClassType.NONE) {
             Lox.error(expr.keyword, "Can't use 'this' outside of a class.");
-            return null;
         }
 
-        resolveLocal(expr, expr.keyword);
         return null;
     }
 
@@ -137,11 +208,15 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     @Override
     public Void visit(Expr.Variable expr) {
-        if (!scopes.isEmpty() && scopes.peek().get(expr.name.lexeme) == Boolean.FALSE) {
-            Lox.error(expr.name, "Can't read local variable in its own initializer.");
+        if (!scopes.isEmpty()) {
+            Local local = scopes.peek().get(expr.name.lexeme);
+            if (local != null && !local.defined) {
+                Lox.error(expr.name, "Can't read local variable in its own initializer.");
+            }
         }
 
-        resolveLocal(expr, expr.name);
+        Local local = resolveLocal(expr.name, slot -> expr.slot = slot);
+        if (local != null) local.reads++;
         return null;
     }
 
@@ -161,7 +236,7 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     @Override
     public Void visit(Stmt.Class stmt) {
-        declare(stmt.name);
+        declare(stmt.name, slot -> stmt.slot = slot);
         define(stmt.name);
 
         ClassType enclosing = currentClass;
@@ -176,14 +251,6 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
             resolve(stmt.superclass);
         }
 
-        if (stmt.superclass != null) {
-            beginScope();
-            scopes.peek().put("super", true);
-        }
-
-        beginScope();
-        scopes.peek().put("this", true);
-
         for (Stmt.Function method: stmt.methods) {
             FunctionType declaration = FunctionType.METHOD;
             if (method.name.lexeme.equals("init")) {
@@ -192,9 +259,6 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
             resolveFunction(method.function, declaration);
         }
 
-        endScope();
-        if (stmt.superclass != null) endScope();
-
         currentClass = enclosing;
         return null;
     }
@@ -205,9 +269,28 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visit(Stmt.For stmt) {
+        beginScope();
+        if (stmt.initializer != null) resolve(stmt.initializer);
+        if (stmt.condition != null) resolve(stmt.condition);
+        loopDepth++;
+        resolve(stmt.body);
+        loopDepth--;
+        if (stmt.increment != null) resolve(stmt.increment);
+
+        if (stmt.initializer instanceof Stmt.Var counter) {
+            Local local = scopes.peek().get(counter.name.lexeme);
+            stmt.counted = local != null && !local.captured && local.assignments == 1
+                    && isCountedLoop(counter.name, stmt.condition, stmt.increment);
+        }
+        endScope();
+        return null;
+    }
+
     @Override
     public Void visit(Stmt.Function stmt) {
-        declare(stmt.name);
+        declare(stmt.name, slot -> stmt.slot = slot, stmt);
         define(stmt.name);
 
         resolveFunction(stmt.function, FunctionType.FUNCTION);
@@ -242,9 +325,14 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visit(Stmt.ReturnCall stmt) {
+        return visit(new Stmt.Return(stmt.keyword, stmt.call));
+    }
+
     @Override
     public Void visit(Stmt.Var stmt) {
-        declare(stmt.name);
+        declare(stmt.name, slot -> stmt.slot = slot, stmt);
         if (stmt.initializer != null) {
             resolve(stmt.initializer);
         }
@@ -261,42 +349,115 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
-    private void resolveLocal(Expr expr, Token name) {
+    private Local resolveLocal(Token name, Consumer<Slot> site) {
         for (int i = scopes.size() - 1; i >= 0; i--) {
-            if (scopes.get(i).containsKey(name.lexeme)) {
-                interpreter.resolve(expr, scopes.size() - 1 - i);
-                return;
+            Local local = scopes.get(i).get(name.lexeme);
+            if (local == null) continue;
+
+            if (local.function == functionScope) {
+                local.sites.add(site);
+            } else {
+                site.accept(Slot.upvalue(resolveUpvalue(functionScope, local)));
+            }
+            return local;
+        }
+
+        return null;
+    }
+
+    private static boolean isCountedLoop(Token counter, Expr condition, Expr increment) {
+        if (!(condition instanceof Expr.Binary compare)) return false;
+        switch (compare.operator.type) {
+            case LESS, LESS_EQUAL, GREATER, GREATER_EQUAL -> {}
+            default -> {
+                return false;
             }
         }
+        if (!isVariable(compare.left, counter)) return false;
+
+        if (!(increment instanceof Expr.Assign assign)) return false;
+        if (!assign.name.lexeme.equals(counter.lexeme)) return false;
+        if (!(assign.value instanceof Expr.Binary step)) return false;
+
+        if (step.operator.type == TokenType.PLUS) {
+            return isVariable(step.left, counter) && isNumber(step.right)
+                    || isNumber(step.left) && isVariable(step.right, counter);
+        }
+        return step.operator.type == TokenType.MINUS && isVariable(step.left, counter) && isNumber(step.right);
+    }
+
+    private static boolean isVariable(Expr expr, Token name) {
+        return expr instanceof Expr.Variable variable && variable.name.lexeme.equals(name.lexeme);
+    }
+
+    private static boolean isNumber(Expr expr) {
+        return expr instanceof Expr.Literal literal && Numbers.isNumber(literal.value);
+    }
+
+    private int resolveUpvalue(FunctionScope function, Local local) {
+        Integer existing = function.upvalueIndexes.get(local);
+        if (existing != null) return existing;
+
+        Slot source;
+        if (function.enclosing == local.function) {
+            local.captured = true;
+            source = Slot.cell(local.index);
+        } else {
+            source = Slot.upvalue(resolveUpvalue(function.enclosing, local));
+        }
+
+        int index = function.upvalues.size();
+        function.upvalues.add(source);
+        function.upvalueIndexes.put(local, index);
+        return index;
     }
 
     private void resolveFunction(Expr.Function function, FunctionType type) {
         FunctionType enclosing = currentFunction;
         currentFunction = type;
+        functionScope = new FunctionScope(functionScope);
         beginScope();
-        for (Token param : function.params) {
-            declare(param);
+
+        function.parameters = new Slot[function.params.size()];
+        for (int i = 0; i < function.params.size(); i++) {
+            int index = i;
+            Token param = function.params.get(i);
+            declare(param, slot -> function.parameters[index] = slot);
             define(param);
         }
         resolve(function.body);
+
         endScope();
+        function.frameSize = functionScope.frameSize;
+        function.upvalues = functionScope.upvalues.toArray(new Slot[0]);
+        functionScope = functionScope.enclosing;
         currentFunction = enclosing;
     }
 
-    private void declare(Token name) {
+    private void declare(Token name, Consumer<Slot> site) {
+        declare(name, site, null);
+    }
+
+    private void declare(Token name, Consumer<Slot> site, Stmt declaration) {
         if (scopes.isEmpty()) return;
 
-        Map<String, Boolean> scope = scopes.peek();
+        Map<String, Local> scope = scopes.peek();
         if (scope.containsKey(name.lexeme)) {
             Lox.error(name, "Variable redeclared in same scope.");
+            return;
         }
 
-        scope.put(name.lexeme, false);
+        Local local = new Local(functionScope, functionScope.slots++);
+        functionScope.frameSize = Math.max(functionScope.frameSize, functionScope.slots);
+        local.sites.add(site);
+        local.declaration = declaration;
+        scope.put(name.lexeme, local);
     }
 
     private void define(Token name) {
         if (scopes.isEmpty()) return;
-        scopes.peek().put(name.lexeme, true);
+        Local local = scopes.peek().get(name.lexeme);
+        if (local != null) local.defined = true;
     }
 
     private void beginScope() {
@@ -304,7 +465,19 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     }
 
     private void endScope() {
-        scopes.pop();
+        Map<String, Local> scope = scopes.pop();
+        for (Local local : scope.values()) {
+            Slot slot = local.captured ? Slot.cell(local.index) : Slot.local(local.index);
+            for (Consumer<Slot> site : local.sites) {
+                site.accept(slot);
+            }
+
+            if (local.reads == 0 && !local.captured) {
+                if (local.declaration instanceof Stmt.Var var) var.unused = true;
+                if (local.declaration instanceof Stmt.Function function) function.unused = true;
+            }
+        }
+        functionScope.slots -= scope.size();
     }
 
     void resolve(Stmt stmt) {
@@ -1,10 +1,53 @@
 package com.craftinginterpreters.lox;
 
+import java.util.ArrayList;
+import java.util.List;
+
 class RuntimeError extends RuntimeException {
-    final Token token;
+    private static final int MAX_FRAMES = 64;
+    private static final int NATIVE = 0;
+
+    Token token;
+    boolean recorded = false;
+
+    private final List<String> functions = new ArrayList<>();
+    private final List<Integer> sites = new ArrayList<>();
 
     RuntimeError(Token token, String message) {
-        super(message);
+        super(message, null, false, false);
         this.token = token;
     }
+
+    RuntimeError(String message) {
+        this(null, message);
+    }
+
+    void unwind(LoxCallable callee, Token site) {
+        functions.add(Interpreter.nameOf(callee));
+        sites.add(site == null ? NATIVE : site.line);
+    }
+
+    String trace() {
+        StringBuilder builder = new StringBuilder();
+        int line = token.line;
+        int frames = 0;
+        for (int i = 0; i <= functions.size(); i++) {
+            String function = i < functions.size() ? functions.get(i) + "()" : "script";
+            int repeats = 1;
+            while (i < functions.size() - 1 && functions.get(i + 1).equals(functions.get(i))
+                    && sites.get(i) == line) {
+                repeats++;
+                i++;
+            }
+
+            if (frames++ == MAX_FRAMES) {
+                builder.append("\n...");
+            } else if (frames < MAX_FRAMES) {
+                builder.append(line == NATIVE ? "\n[native]" : "\n[line " + line + "]").append(" in ").append(function);
+                if (repeats > 1) builder.append(" (").append(repeats).append(" frames)");
+            }
+            if (i < sites.size()) line = sites.get(i);
+        }
+        return builder.toString();
+    }
 }
@@ -0,0 +1,25 @@
+package com.craftinginterpreters.lox;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("jlox.RuntimeError")
+@Label("Lox Runtime Error")
+@Category("Lox")
+@StackTrace(false)
+class RuntimeErrorEvent extends Event {
+    @Label("Message")
+    String message;
+
+    @Label("Function")
+    String function;
+
+    @Label("Line")
+    int line;
+
+    @Label("Script")
+    String script;
+}
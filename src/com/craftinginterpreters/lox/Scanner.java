@@ -42,6 +42,11 @@ class Scanner {
         this.source = source;
     }
 
+    Scanner(String source, int line) {
+        this.source = source;
+        this.line = line;
+    }
+
     List<Token> scanTokens() {
         while (!isAtEnd()) {
             start = current;
@@ -146,7 +151,7 @@ class Scanner {
             while (isDigit(peek()));
         }
 
-        addToken(NUMBER, Double.parseDouble(source.substring(start, current)));
+        addToken(NUMBER, Numbers.valueOf(Double.parseDouble(source.substring(start, current))));
     }
 
     private void identifier() {
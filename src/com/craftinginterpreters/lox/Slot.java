@@ -0,0 +1,34 @@
+package com.craftinginterpreters.lox;
+
+class Slot {
+    enum Kind {
+        LOCAL,
+        CELL,
+        UPVALUE
+    }
+
+    final Kind kind;
+    final int index;
+
+    private Slot(Kind kind, int index) {
+        this.kind = kind;
+        this.index = index;
+    }
+
+    static Slot local(int index) {
+        return new Slot(Kind.LOCAL, index);
+    }
+
+    static Slot cell(int index) {
+        return new Slot(Kind.CELL, index);
+    }
+
+    static Slot upvalue(int index) {
+        return new Slot(Kind.UPVALUE, index);
+    }
+
+    @Override
+    public String toString() {
+        return kind.name().toLowerCase() + " " + index;
+    }
+}
@@ -0,0 +1,12 @@
+package com.craftinginterpreters.lox;
+
+enum Specialization {
+    UNINITIALIZED,
+    NUMBER,
+    STRING,
+    BOOLEAN,
+    FUNCTION,
+    CLASS,
+    NATIVE,
+    GENERIC
+}
@@ -0,0 +1,67 @@
+package com.craftinginterpreters.lox;
+
+import java.io.PrintStream;
+import java.util.List;
+
+class SpecializationDump extends AstRewriter {
+    private final PrintStream out;
+
+    SpecializationDump(PrintStream out) {
+        this.out = out;
+    }
+
+    void dump(List<Stmt> statements) {
+        rewrite(statements);
+    }
+
+    private void report(Token token, String node, Feedback feedback) {
+        report(token, node, feedback, Type.UNKNOWN);
+    }
+
+    private void report(Token token, String node, Feedback feedback, Type operands) {
+        String proven = operands == Type.UNKNOWN ? "" : " (proven " + operands.name().toLowerCase() + ")";
+        out.println("[line " + token.line + "] " + node + " '" + token.lexeme + "': " + feedback + proven);
+    }
+
+    @Override
+    public Expr visit(Expr.Binary expr) {
+        report(expr.operator, "binary", expr.feedback, expr.operands);
+        return super.visit(expr);
+    }
+
+    @Override
+    public Expr visit(Expr.Call expr) {
+        out.println("[line " + expr.paren.line + "] call: " + expr.feedback + ", " + expr.cache);
+        return super.visit(expr);
+    }
+
+    @Override
+    public Expr visit(Expr.Compare expr) {
+        report(expr.operator, "compare", expr.feedback, expr.operands);
+        return super.visit(expr);
+    }
+
+    @Override
+    public Expr visit(Expr.Compound expr) {
+        report(expr.operator, "compound", expr.feedback, expr.operands);
+        return super.visit(expr);
+    }
+
+    @Override
+    public Expr visit(Expr.CompoundSet expr) {
+        report(expr.operator, "compound set", expr.feedback);
+        return super.visit(expr);
+    }
+
+    @Override
+    public Expr visit(Expr.Logical expr) {
+        report(expr.operator, "logical", expr.feedback, expr.operands);
+        return super.visit(expr);
+    }
+
+    @Override
+    public Expr visit(Expr.Unary expr) {
+        report(expr.operator, "unary", expr.feedback, expr.operands);
+        return super.visit(expr);
+    }
+}
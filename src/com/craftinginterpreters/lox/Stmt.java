@@ -8,10 +8,12 @@ abstract class Stmt {
         R visit(Break stmt);
         R visit(Class stmt);
         R visit(Expression stmt);
+        R visit(For stmt);
         R visit(Function stmt);
         R visit(If stmt);
         R visit(Print stmt);
         R visit(Return stmt);
+        R visit(ReturnCall stmt);
         R visit(Var stmt);
         R visit(While stmt);
     }
@@ -53,6 +55,8 @@ abstract class Stmt {
             this.methods = methods;
         }
 
+        Slot slot;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -72,6 +76,30 @@ abstract class Stmt {
         }
     }
 
+    static class For extends Stmt {
+        final Token keyword;
+        final Stmt initializer;
+        final Expr condition;
+        final Expr increment;
+        final Stmt body;
+
+        For(Token keyword, Stmt initializer, Expr condition, Expr increment, Stmt body) {
+            this.keyword = keyword;
+            this.initializer = initializer;
+            this.condition = condition;
+            this.increment = increment;
+            this.body = body;
+        }
+
+        boolean counted;
+        int[] invariants;
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visit(this);
+        }
+    }
+
     static class Function extends Stmt {
         final Token name;
         final Expr.Function function;
@@ -81,6 +109,9 @@ abstract class Stmt {
             this.function = function;
         }
 
+        Slot slot;
+        boolean unused;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -132,6 +163,21 @@ abstract class Stmt {
         }
     }
 
+    static class ReturnCall extends Stmt {
+        final Token keyword;
+        final Expr.Call call;
+
+        ReturnCall(Token keyword, Expr.Call call) {
+            this.keyword = keyword;
+            this.call = call;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visit(this);
+        }
+    }
+
     static class Var extends Stmt {
         final Token name;
         final Expr initializer;
@@ -141,6 +187,9 @@ abstract class Stmt {
             this.initializer = initializer;
         }
 
+        Slot slot;
+        boolean unused;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
@@ -148,14 +197,18 @@ abstract class Stmt {
     }
 
     static class While extends Stmt {
+        final Token keyword;
         final Expr condition;
         final Stmt body;
 
-        While(Expr condition, Stmt body) {
+        While(Token keyword, Expr condition, Stmt body) {
+            this.keyword = keyword;
             this.condition = condition;
             this.body = body;
         }
 
+        int[] invariants;
+
         @Override
         <R> R accept(Visitor<R> visitor) {
             return visitor.visit(this);
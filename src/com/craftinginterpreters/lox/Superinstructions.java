@@ -0,0 +1,113 @@
+package com.craftinginterpreters.lox;
+
+class Superinstructions extends AstRewriter {
+    @Override
+    public Expr visit(Expr.Assign expr) {
+        Expr.Assign assign = (Expr.Assign) super.visit(expr);
+
+        if (assign.value instanceof Expr.Binary binary
+                && isArithmetic(binary.operator)
+                && binary.left instanceof Expr.Variable variable
+                && variable.name.lexeme.equals(assign.name.lexeme)
+                && sameSlot(variable.slot, assign.slot)) {
+            Expr.Compound compound = new Expr.Compound(assign.name, binary.operator, binary.right);
+            compound.slot = assign.slot;
+            return compound;
+        }
+
+        return assign;
+    }
+
+    @Override
+    public Expr visit(Expr.Set expr) {
+        Expr.Set set = (Expr.Set) super.visit(expr);
+
+        if (set.value instanceof Expr.Binary binary
+                && isArithmetic(binary.operator)
+                && binary.left instanceof Expr.Get get
+                && get.name.lexeme.equals(set.name.lexeme)
+                && sameReceiver(get.object, set.object)) {
+            return new Expr.CompoundSet(set.object, set.name, binary.operator, binary.right);
+        }
+
+        return set;
+    }
+
+    @Override
+    public Stmt visit(Stmt.For stmt) {
+        if (!stmt.counted) {
+            Stmt.For loop = (Stmt.For) super.visit(stmt);
+            Expr condition = fuseCondition(loop.condition);
+            if (condition == loop.condition) return loop;
+
+            Stmt.For copy = new Stmt.For(loop.keyword, loop.initializer, condition, loop.increment, loop.body);
+            copy.counted = false;
+            return copy;
+        }
+
+        Stmt initializer = rewrite(stmt.initializer);
+        Stmt body = rewrite(stmt.body);
+        if (initializer == stmt.initializer && body == stmt.body) return stmt;
+
+        Stmt.For copy = new Stmt.For(stmt.keyword, initializer, stmt.condition, stmt.increment, body);
+        copy.counted = true;
+        return copy;
+    }
+
+    @Override
+    public Stmt visit(Stmt.If stmt) {
+        Stmt.If branch = (Stmt.If) super.visit(stmt);
+        Expr condition = fuseCondition(branch.condition);
+        if (condition == branch.condition) return branch;
+        return new Stmt.If(condition, branch.thenBranch, branch.elseBranch);
+    }
+
+    @Override
+    public Stmt visit(Stmt.Return stmt) {
+        Stmt.Return ret = (Stmt.Return) super.visit(stmt);
+        if (ret.value instanceof Expr.Call call) return new Stmt.ReturnCall(ret.keyword, call);
+        return ret;
+    }
+
+    @Override
+    public Stmt visit(Stmt.While stmt) {
+        Stmt.While loop = (Stmt.While) super.visit(stmt);
+        Expr condition = fuseCondition(loop.condition);
+        if (condition == loop.condition) return loop;
+        return new Stmt.While(loop.keyword, condition, loop.body);
+    }
+
+    private static Expr fuseCondition(Expr condition) {
+        if (condition instanceof Expr.Binary binary && isComparison(binary.operator)) {
+            return new Expr.Compare(binary.left, binary.operator, binary.right);
+        }
+        return condition;
+    }
+
+    private static boolean isArithmetic(Token operator) {
+        return switch (operator.type) {
+            case PLUS, MINUS, STAR, SLASH -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isComparison(Token operator) {
+        return switch (operator.type) {
+            case LESS, LESS_EQUAL, GREATER, GREATER_EQUAL, EQUAL_EQUAL, BANG_EQUAL -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean sameReceiver(Expr a, Expr b) {
+        if (a instanceof Expr.This && b instanceof Expr.This) return true;
+        return a instanceof Expr.Variable left
+                && b instanceof Expr.Variable right
+                && left.name.lexeme.equals(right.name.lexeme)
+                && sameSlot(left.slot, right.slot);
+    }
+
+    private static boolean sameSlot(Slot a, Slot b) {
+        if (a == null || b == null) return a == b;
+        return a.kind == b.kind && a.index == b.index;
+    }
+}
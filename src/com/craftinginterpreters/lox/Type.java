@@ -0,0 +1,9 @@
+package com.craftinginterpreters.lox;
+
+enum Type {
+    NUMBER,
+    STRING,
+    BOOLEAN,
+    INSTANCE,
+    UNKNOWN
+}
@@ -0,0 +1,460 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+
+class TypeInference implements Expr.Visitor<Type>, Stmt.Visitor<Void> {
+    private static class Local {
+        final boolean tracked;
+        final boolean parameter;
+        Type type = null;
+        boolean numericUse = false;
+
+        Local(boolean tracked, boolean parameter) {
+            this.tracked = tracked;
+            this.parameter = parameter;
+        }
+    }
+
+    private static class Deoptimizer extends AstRewriter {
+        private final Expr.Function root;
+
+        Deoptimizer(Expr.Function root) {
+            this.root = root;
+        }
+
+        @Override
+        public Expr visit(Expr.Binary expr) {
+            expr.operands = Type.UNKNOWN;
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Compare expr) {
+            expr.operands = Type.UNKNOWN;
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Compound expr) {
+            expr.operands = Type.UNKNOWN;
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Function expr) {
+            if (expr != root) return expr;
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Logical expr) {
+            expr.operands = Type.UNKNOWN;
+            return super.visit(expr);
+        }
+
+        @Override
+        public Expr visit(Expr.Unary expr) {
+            expr.operands = Type.UNKNOWN;
+            return super.visit(expr);
+        }
+    }
+
+    private final Map<Token, Local> locals = new IdentityHashMap<>();
+    private final Stack<Map<String, Local>> scopes = new Stack<>();
+    private final List<Expr.Function> functions = new ArrayList<>();
+    private boolean changed = false;
+
+    static void infer(List<Stmt> statements) {
+        new TypeInference().analyze(null, statements);
+    }
+
+    static void guard(Expr.Function declaration, Type[] guards, List<Object> arguments) {
+        for (int i = 0; i < guards.length; i++) {
+            if (guards[i] == Type.NUMBER && !Numbers.isNumber(arguments.get(i))) {
+                deoptimize(declaration, guards);
+                return;
+            }
+        }
+    }
+
+    private static void deoptimize(Expr.Function declaration, Type[] guards) {
+        synchronized (declaration) {
+            if (declaration.guards != guards) return;
+            new Deoptimizer(declaration).rewrite(declaration);
+            declaration.guards = null;
+        }
+    }
+
+    private void analyze(Expr.Function function, List<Stmt> body) {
+        pass(function, body);
+        for (Local local : locals.values()) {
+            if (local.parameter) {
+                local.type = local.tracked && local.numericUse ? Type.NUMBER : Type.UNKNOWN;
+            } else {
+                local.type = null;
+            }
+        }
+
+        do {
+            changed = false;
+            pass(function, body);
+        } while (changed);
+
+        if (function != null) {
+            Type[] guards = new Type[function.params.size()];
+            boolean guarded = false;
+            for (int i = 0; i < guards.length; i++) {
+                Local local = locals.get(function.params.get(i));
+                guards[i] = local.type == Type.NUMBER ? Type.NUMBER : Type.UNKNOWN;
+                guarded |= guards[i] == Type.NUMBER;
+            }
+            function.guards = guarded ? guards : null;
+        }
+
+        for (Expr.Function nested : functions) {
+            new TypeInference().analyze(nested, nested.body);
+        }
+    }
+
+    private void pass(Expr.Function function, List<Stmt> body) {
+        functions.clear();
+        if (function != null) {
+            scopes.push(new HashMap<>());
+            for (int i = 0; i < function.params.size(); i++) {
+                declare(function.params.get(i), function.parameters[i], true);
+            }
+        }
+
+        for (Stmt statement : body) {
+            statement.accept(this);
+        }
+
+        if (function != null) scopes.pop();
+    }
+
+    private Type infer(Expr expr) {
+        return expr.accept(this);
+    }
+
+    private void infer(Stmt stmt) {
+        if (stmt != null) stmt.accept(this);
+    }
+
+    private void declare(Token name, Slot slot, boolean parameter) {
+        if (scopes.isEmpty()) return;
+
+        boolean tracked = slot != null && slot.kind == Slot.Kind.LOCAL;
+        Local local = locals.computeIfAbsent(name, key -> new Local(tracked, parameter));
+        scopes.peek().put(name.lexeme, local);
+        if (!tracked) local.type = Type.UNKNOWN;
+    }
+
+    private Local lookUp(Token name, Slot slot) {
+        if (slot == null || slot.kind != Slot.Kind.LOCAL) return null;
+
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Local local = scopes.get(i).get(name.lexeme);
+            if (local != null) return local;
+        }
+        return null;
+    }
+
+    private void store(Local local, Type type) {
+        if (local == null || !local.tracked) return;
+
+        Type joined = join(local.type, type);
+        if (joined != local.type) {
+            local.type = joined;
+            changed = true;
+        }
+    }
+
+    private void numericUse(Expr operand) {
+        while (operand instanceof Expr.Grouping grouping) operand = grouping.expression;
+        if (operand instanceof Expr.Variable variable) {
+            Local local = lookUp(variable.name, variable.slot);
+            if (local != null) local.numericUse = true;
+        }
+    }
+
+    private static Type join(Type a, Type b) {
+        if (a == null) return b;
+        if (b == null || a == b) return a;
+        return Type.UNKNOWN;
+    }
+
+    private static Type arithmetic(TokenType operator, Type left, Type right) {
+        if (operator != TokenType.PLUS) return Type.NUMBER;
+        if (left == Type.NUMBER || right == Type.NUMBER) return Type.NUMBER;
+        if (left == Type.STRING || right == Type.STRING) return Type.STRING;
+        if (left == null && right == null) return null;
+        return Type.UNKNOWN;
+    }
+
+    private static Type operands(TokenType operator, Type left, Type right) {
+        if (left == Type.NUMBER && right == Type.NUMBER) return Type.NUMBER;
+        if (operator == TokenType.PLUS && left == Type.STRING && right == Type.STRING) return Type.STRING;
+        return Type.UNKNOWN;
+    }
+
+    private static boolean isRelational(TokenType operator) {
+        return switch (operator) {
+            case LESS, LESS_EQUAL, GREATER, GREATER_EQUAL -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    public Type visit(Expr.Assign expr) {
+        Type type = infer(expr.value);
+        store(lookUp(expr.name, expr.slot), type);
+        return type;
+    }
+
+    @Override
+    public Type visit(Expr.Binary expr) {
+        Type left = infer(expr.left);
+        Type right = infer(expr.right);
+        TokenType operator = expr.operator.type;
+
+        switch (operator) {
+            case MINUS, SLASH, STAR, LESS, LESS_EQUAL, GREATER, GREATER_EQUAL -> {
+                numericUse(expr.left);
+                numericUse(expr.right);
+            }
+            default -> { }
+        }
+
+        expr.operands = operands(operator, left, right);
+        if (operator == TokenType.EQUAL_EQUAL || operator == TokenType.BANG_EQUAL || isRelational(operator)) {
+            return Type.BOOLEAN;
+        }
+        return arithmetic(operator, left, right);
+    }
+
+    @Override
+    public Type visit(Expr.Cached expr) {
+        return infer(expr.expression);
+    }
+
+    @Override
+    public Type visit(Expr.Call expr) {
+        infer(expr.callee);
+        for (Expr argument : expr.arguments) {
+            infer(argument);
+        }
+        return Type.UNKNOWN;
+    }
+
+    @Override
+    public Type visit(Expr.Compare expr) {
+        Type left = infer(expr.left);
+        Type right = infer(expr.right);
+        if (isRelational(expr.operator.type)) {
+            numericUse(expr.left);
+            numericUse(expr.right);
+        }
+
+        expr.operands = left == Type.NUMBER && right == Type.NUMBER ? Type.NUMBER : Type.UNKNOWN;
+        return Type.BOOLEAN;
+    }
+
+    @Override
+    public Type visit(Expr.Compound expr) {
+        Local local = lookUp(expr.name, expr.slot);
+        Type current = local == null ? Type.UNKNOWN : local.type;
+        Type value = infer(expr.value);
+        if (expr.operator.type != TokenType.PLUS) {
+            if (local != null) local.numericUse = true;
+            numericUse(expr.value);
+        }
+
+        expr.operands = operands(expr.operator.type, current, value);
+        Type type = arithmetic(expr.operator.type, current, value);
+        store(local, type);
+        return type;
+    }
+
+    @Override
+    public Type visit(Expr.CompoundSet expr) {
+        infer(expr.object);
+        return arithmetic(expr.operator.type, Type.UNKNOWN, infer(expr.value));
+    }
+
+    @Override
+    public Type visit(Expr.Function expr) {
+        functions.add(expr);
+        return Type.UNKNOWN;
+    }
+
+    @Override
+    public Type visit(Expr.Get expr) {
+        infer(expr.object);
+        return Type.UNKNOWN;
+    }
+
+    @Override
+    public Type visit(Expr.Grouping expr) {
+        return infer(expr.expression);
+    }
+
+    @Override
+    public Type visit(Expr.Inline expr) {
+        infer(expr.call);
+        return Type.UNKNOWN;
+    }
+
+    @Override
+    public Type visit(Expr.Literal expr) {
+        if (Numbers.isNumber(expr.value)) return Type.NUMBER;
+        if (expr.value instanceof String) return Type.STRING;
+        if (expr.value instanceof Boolean) return Type.BOOLEAN;
+        return Type.UNKNOWN;
+    }
+
+    @Override
+    public Type visit(Expr.Logical expr) {
+        Type left = infer(expr.left);
+        Type right = infer(expr.right);
+        expr.operands = left == Type.BOOLEAN ? Type.BOOLEAN : Type.UNKNOWN;
+        return join(left, right);
+    }
+
+    @Override
+    public Type visit(Expr.Set expr) {
+        infer(expr.object);
+        return infer(expr.value);
+    }
+
+    @Override
+    public Type visit(Expr.Super expr) {
+        return Type.UNKNOWN;
+    }
+
+    @Override
+    public Type visit(Expr.Ternary expr) {
+        infer(expr.condition);
+        return join(infer(expr.onTrue), infer(expr.onFalse));
+    }
+
+    @Override
+    public Type visit(Expr.This expr) {
+        return Type.INSTANCE;
+    }
+
+    @Override
+    public Type visit(Expr.Unary expr) {
+        Type right = infer(expr.right);
+        if (expr.operator.type == TokenType.MINUS) {
+            numericUse(expr.right);
+            expr.operands = right == Type.NUMBER ? Type.NUMBER : Type.UNKNOWN;
+            return Type.NUMBER;
+        }
+
+        expr.operands = right == Type.BOOLEAN ? Type.BOOLEAN : Type.UNKNOWN;
+        return Type.BOOLEAN;
+    }
+
+    @Override
+    public Type visit(Expr.Variable expr) {
+        Local local = lookUp(expr.name, expr.slot);
+        return local == null ? Type.UNKNOWN : local.type;
+    }
+
+    @Override
+    public Void visit(Stmt.Block stmt) {
+        scopes.push(new HashMap<>());
+        for (Stmt statement : stmt.statements) {
+            infer(statement);
+        }
+        scopes.pop();
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Break stmt) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Class stmt) {
+        declare(stmt.name, stmt.slot, false);
+        store(locals.get(stmt.name), Type.UNKNOWN);
+        if (stmt.superclass != null) infer(stmt.superclass);
+        for (Stmt.Function method : stmt.methods) {
+            functions.add(method.function);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Expression stmt) {
+        infer(stmt.expression);
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.For stmt) {
+        scopes.push(new HashMap<>());
+        infer(stmt.initializer);
+        if (stmt.condition != null) infer(stmt.condition);
+        infer(stmt.body);
+        if (stmt.increment != null) infer(stmt.increment);
+        scopes.pop();
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Function stmt) {
+        declare(stmt.name, stmt.slot, false);
+        store(locals.get(stmt.name), Type.UNKNOWN);
+        functions.add(stmt.function);
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.If stmt) {
+        infer(stmt.condition);
+        infer(stmt.thenBranch);
+        infer(stmt.elseBranch);
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Print stmt) {
+        infer(stmt.expression);
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Return stmt) {
+        if (stmt.value != null) infer(stmt.value);
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.ReturnCall stmt) {
+        infer(stmt.call);
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.Var stmt) {
+        Type type = stmt.initializer == null ? Type.UNKNOWN : infer(stmt.initializer);
+        declare(stmt.name, stmt.slot, false);
+        store(locals.get(stmt.name), type);
+        return null;
+    }
+
+    @Override
+    public Void visit(Stmt.While stmt) {
+        infer(stmt.condition);
+        infer(stmt.body);
+        return null;
+    }
+}
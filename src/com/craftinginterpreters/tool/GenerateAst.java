@@ -15,33 +15,40 @@ public class GenerateAst {
         String outputDir = args[0];
 
         defineAst(outputDir, "Expr", Arrays.asList(
-                "Assign     : Token name, Expr value",
-                "Binary     : Expr left, Token operator, Expr right",
-                "Call       : Expr callee, Token paren, List<Expr> arguments",
-                "Function   : List<Token> params, List<Stmt> body",
+                "Assign     : Token name, Expr value | Slot slot",
+                "Binary     : Expr left, Token operator, Expr right | final Feedback feedback = new Feedback(), Type operands = Type.UNKNOWN",
+                "Cached     : Expr expression | int slot, boolean lazy",
+                "Call       : Expr callee, Token paren, List<Expr> arguments | final Feedback feedback = new Feedback(), final CallCache cache = new CallCache()",
+                "Compare    : Expr left, Token operator, Expr right | final Feedback feedback = new Feedback(), Type operands = Type.UNKNOWN",
+                "Compound   : Token name, Token operator, Expr value | Slot slot, final Feedback feedback = new Feedback(), Type operands = Type.UNKNOWN",
+                "CompoundSet: Expr object, Token name, Token operator, Expr value | final Feedback feedback = new Feedback()",
+                "Function   : List<Token> params, List<Stmt> body | Slot[] parameters, Slot[] upvalues, int frameSize, Type[] guards",
                 "Get        : Expr object, Token name",
                 "Grouping   : Expr expression",
+                "Inline     : Expr.Call call, Expr.Function target, Expr body | int base",
                 "Literal    : Object value",
-                "Logical    : Expr left, Token operator, Expr right",
+                "Logical    : Expr left, Token operator, Expr right | final Feedback feedback = new Feedback(), Type operands = Type.UNKNOWN",
                 "Set        : Expr object, Token name, Expr value",
                 "Super      : Token keyword, Token method",
                 "Ternary    : Expr condition, Expr onTrue, Expr onFalse",
                 "This       : Token keyword",
-                "Unary      : Token operator, Expr right",
-                "Variable   : Token name"
+                "Unary      : Token operator, Expr right | final Feedback feedback = new Feedback(), Type operands = Type.UNKNOWN",
+                "Variable   : Token name | Slot slot"
         ));
 
         defineAst(outputDir, "Stmt", Arrays.asList(
                 "Block      : List<Stmt> statements",
                 "Break      : Token keyword",
-                "Class      : Token name, Expr.Variable superclass, List<Stmt.Function> methods",
+                "Class      : Token name, Expr.Variable superclass, List<Stmt.Function> methods | Slot slot",
                 "Expression : Expr expression",
-                "Function   : Token name, Expr.Function function",
+                "For        : Token keyword, Stmt initializer, Expr condition, Expr increment, Stmt body | boolean counted, int[] invariants",
+                "Function   : Token name, Expr.Function function | Slot slot, boolean unused",
                 "If         : Expr condition, Stmt thenBranch, Stmt elseBranch",
                 "Print      : Expr expression",
                 "Return     : Token keyword, Expr value",
-                "Var        : Token name, Expr initializer",
-                "While      : Expr condition, Stmt body"
+                "ReturnCall : Token keyword, Expr.Call call",
+                "Var        : Token name, Expr initializer | Slot slot, boolean unused",
+                "While      : Token keyword, Expr condition, Stmt body | int[] invariants"
         ));
     }
 
@@ -86,6 +93,12 @@ public class GenerateAst {
     private static void defineType(PrintWriter writer, String baseName, String className, String fieldList) {
         writer.println("    static class " + className + " extends " + baseName + " {");
 
+        String annotationList = "";
+        if (fieldList.contains("|")) {
+            annotationList = fieldList.split("\\|")[1].trim();
+            fieldList = fieldList.split("\\|")[0].trim();
+        }
+
         if (!fieldList.isBlank()){
             String[] fields = fieldList.split(", ");
 
@@ -103,6 +116,13 @@ public class GenerateAst {
             writer.println("        }");
         }
 
+        if (!annotationList.isBlank()) {
+            writer.println();
+            for (String annotation: annotationList.split(", ")) {
+                writer.println("        " + annotation + ";");
+            }
+        }
+
         writer.println();
         writer.println("        @Override");
         writer.println("        <R> R accept(Visitor<R> visitor) {");